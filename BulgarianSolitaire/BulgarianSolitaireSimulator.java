@@ -7,6 +7,15 @@ import java.util.Scanner;
  users can type in initial configuration or start game with random initial configuration depend on different command-line argument
  command-line argument -u prompts for the initial configuration from the user, instead of generating a random configuration.
  command-line argument -s stops between every round of the game. The game only continues when the user hits enter
+ command-line argument -e explores every initial configuration instead of playing a game (see PartitionExplorer),
+ and prints how many rounds they take to finish or to enter a cycle
+ command-line argument -n cardTotal plays with cardTotal cards instead of SolitaireBoard.CARD_TOTAL. If it is not a
+ triangular number the game never finishes, so it is played until a configuration comes back, and the round it
+ entered the cycle in and the length of the cycle are printed
+ command-line argument -m games plays that many games from random initial configurations without printing them, on
+ all the cores, and prints how many rounds they took to finish or to enter a cycle (see ConvergenceStudy).
+ command-line argument -seed seed makes the random initial configurations of -m the same on every run; without it a
+ seed is picked and printed. command-line argument -threads n plays them on n threads
  */
 
 public class BulgarianSolitaireSimulator {
@@ -21,6 +30,11 @@ public class BulgarianSolitaireSimulator {
 
         boolean singleStep = false; // iff ture game stops between every round
         boolean userConfig = false; // iff true game starts with initial configuration typing in from user
+        boolean explore = false; // iff true every initial configuration is explored instead of playing a game
+        int cardTotal = SolitaireBoard.CARD_TOTAL; // the number of cards of the game
+        long games = 0; // the number of random games to study, 0 to play one game
+        long seed = System.nanoTime(); // the seed of the random games to study
+        int threads = Runtime.getRuntime().availableProcessors(); // the number of threads to study them on
 
 
         // check command-line argument to control initial configuration and game stops between every round or not
@@ -31,6 +45,42 @@ public class BulgarianSolitaireSimulator {
             else if (args[i].equals("-s")) {
                 singleStep = true;
             }
+            else if (args[i].equals("-e")) {
+                explore = true;
+            }
+            else if (args[i].equals("-n") && i + 1 < args.length) {
+                cardTotal = Integer.parseInt(args[++i]);
+            }
+            else if (args[i].equals("-m") && i + 1 < args.length) {
+                games = Long.parseLong(args[++i]);
+            }
+            else if (args[i].equals("-seed") && i + 1 < args.length) {
+                seed = Long.parseLong(args[++i]);
+            }
+            else if (args[i].equals("-threads") && i + 1 < args.length) {
+                threads = Math.max(1, Integer.parseInt(args[++i]));
+            }
+        }
+
+        if (cardTotal < 1) {
+            System.out.println("ERROR: The number of cards must be positive");
+            return;
+        }
+
+        if (explore) {
+
+            if (cardTotal > PartitionCode.MAX_WIDE_CARD_TOTAL) {
+                System.out.println("ERROR: Can only explore up to " + PartitionCode.MAX_WIDE_CARD_TOTAL + " cards");
+                return;
+            }
+
+            exploreAll(cardTotal);
+            return;
+        }
+
+        if (games > 0) {
+            study(cardTotal, games, seed, threads);
+            return;
         }
 
         SolitaireBoard boardGame;
@@ -39,16 +89,16 @@ public class BulgarianSolitaireSimulator {
 
         if (userConfig) {
 
-            System.out.println("Number of total cards is " + SolitaireBoard.CARD_TOTAL);
+            System.out.println("Number of total cards is " + cardTotal);
             System.out.println("You will be entering the initial configuration of the cards (i.e., how many in each pile).");
             System.out.println("Please enter a space-separated list of positive integers followed by newline:");
 
             String inputString = scannerInput.nextLine();
 
             // if user types in invalid configuration, they should type in again
-            while (!isValidConfigString(inputString)) {
+            while (!isValidConfigString(inputString, cardTotal)) {
 
-                System.out.println("ERROR: Each pile must have at least one card and the total number of cards must be " +                                                  SolitaireBoard.CARD_TOTAL);
+                System.out.println("ERROR: Each pile must have at least one card and the total number of cards must be " +                                                  cardTotal);
                 System.out.println("Please enter a space-separated list of positive integers followed by newline:");
                 inputString = scannerInput.nextLine();
 
@@ -62,31 +112,35 @@ public class BulgarianSolitaireSimulator {
             }
 
             // initial configuration from user passes to SolitaireBoard
-            boardGame = new SolitaireBoard(piles);
+            boardGame = new SolitaireBoard(cardTotal, piles);
 
         } else {
 
             // random initial configuration
-            boardGame = new SolitaireBoard();
+            boardGame = new SolitaireBoard(cardTotal);
         }
 
         gameStart(boardGame, scannerInput, singleStep);
-        System.out.println("Done!");
+
+        if (boardGame.isDone()) {
+            System.out.println("Done!");
+        }
 
     }
 
 
     /**
      Return true iff th initial configuration from user inputs is in a valid state
-     a valid state means all of inputs are positive integers only , 0 < all on input integers <= CARD_TOTAL
-     and sum of input integers equals CARD_TOTAL
+     a valid state means all of inputs are positive integers only , 0 < all on input integers <= cardTotal
+     and sum of input integers equals cardTotal
 
      @ param inputString  the initial configuration from user inputs
+     @ param cardTotal  the number of cards of the game
 
      @ return  true or false means the initial configuration is in a valid state or not
      */
 
-    private static boolean isValidConfigString(String inputString) {
+    private static boolean isValidConfigString(String inputString, int cardTotal) {
 
         Scanner readString = new Scanner(inputString);
         int sumInput = 0;
@@ -99,8 +153,8 @@ public class BulgarianSolitaireSimulator {
 
                 int inputNumber = readString.nextInt();
 
-                // check input integers's values are between 0 (exclusive) and CARD_TOTAL (inclusive) or not
-                if (inputNumber > 0 && inputNumber <= SolitaireBoard.CARD_TOTAL) {
+                // check input integers's values are between 0 (exclusive) and cardTotal (inclusive) or not
+                if (inputNumber > 0 && inputNumber <= cardTotal) {
 
                     sumInput = sumInput + inputNumber;
 
@@ -118,8 +172,8 @@ public class BulgarianSolitaireSimulator {
 
         }
 
-        // check sum of input integers equals CARD_TOTAL or not
-        if (sumInput != SolitaireBoard.CARD_TOTAL) {
+        // check sum of input integers equals cardTotal or not
+        if (sumInput != cardTotal) {
             return false;
         }
 
@@ -127,7 +181,8 @@ public class BulgarianSolitaireSimulator {
     }
 
     /**
-     print out game results every round until game is done
+     print out game results every round until game is done, or until a configuration comes back if it never finishes,
+     which means it has gone once round the cycle it ends in
      If command-line argument with -s, game stops between every round.
      The game only continues when the user hits enter
 
@@ -138,13 +193,17 @@ public class BulgarianSolitaireSimulator {
 
     private static void gameStart(SolitaireBoard boardGame, Scanner nextStep, boolean singleStep) {
 
-        int round = 1;
+        boolean finishes = boardGame.getNumFinalPiles() > 0;
 
+        // the game is worked out ahead on copies of the board, so the rounds to print are known before playing them:
+        // a game that finishes ends in its final configuration, which is a cycle of length 1, and a game that never
+        // finishes is played until the first configuration of its cycle comes back
+        SolitaireBoard.Cycle cycle = boardGame.findCycle();
+        int lastRound = finishes ? cycle.getEntryRound() : cycle.getEntryRound() + cycle.getLength();
 
         System.out.println("Initial configuration: " + boardGame.configString());
 
-        // check the current board is at the end of the game or not
-        while (!boardGame.isDone()) {
+        for (int round = 1; round <= lastRound; round++) {
 
             boardGame.playRound();
             System.out.println("[" + round + "] Current configuration: " + boardGame.configString());
@@ -154,8 +213,89 @@ public class BulgarianSolitaireSimulator {
                 System.out.print("<Type return to continue>");
                 nextStep.nextLine(); // user hits enter to continue the game
             }
+        }
+
+        if (!finishes) {
+            System.out.println("Entered a cycle of length " + cycle.getLength() + " in round " + cycle.getEntryRound());
+        }
+    }
+
+
+    /**
+     print out how many rounds every initial configuration takes to finish or to enter a cycle,
+     by exploring all the partitions of the cards
+
+     @ param cardTotal  the number of cards
+     */
+
+    private static void exploreAll(int cardTotal) {
+
+        long start = System.nanoTime();
+        PartitionExplorer explorer = new PartitionExplorer(cardTotal);
+        long elapsed = System.nanoTime() - start;
+
+        int[] histogram = explorer.roundsHistogram();
+        int longest = 0;
+        long totalRounds = 0;
+
+        // find a configuration that takes the most rounds, and the total of the rounds for the mean
+        for (int i = 0; i < explorer.numPartitions(); i++) {
+
+            if (explorer.rounds(i) > explorer.rounds(longest)) {
+                longest = i;
+            }
+
+            totalRounds += explorer.rounds(i);
+        }
+
+        System.out.println("Number of total cards is " + cardTotal);
+        System.out.printf("Explored %d initial configurations in %.3f s, ending in %d cycle(s)%n",
+                explorer.numPartitions(), elapsed / 1e9, explorer.numCycles());
+        System.out.printf("Rounds to finish or to enter a cycle: mean %.2f, max %d from %s%n",
+                (double) totalRounds / explorer.numPartitions(), explorer.rounds(longest), explorer.configString(longest));
+
+        for (int rounds = 0; rounds < histogram.length; rounds++) {
+            if (histogram[rounds] > 0) {
+                System.out.println("[" + rounds + "] " + histogram[rounds]);
+            }
+        }
+    }
 
-            round++;
+
+    /**
+     print out how many rounds random games take to finish or to enter a cycle, playing them in parallel
+
+     @ param cardTotal  the number of cards
+     @ param games  the number of games
+     @ param seed  the seed of their random initial configurations
+     @ param threads  the number of threads to play them on
+     */
+
+    private static void study(int cardTotal, long games, long seed, int threads) {
+
+        long start = System.nanoTime();
+        ConvergenceStudy study;
+
+        try {
+            study = new ConvergenceStudy(cardTotal, games, seed, threads);
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        long elapsed = System.nanoTime() - start;
+        long[] histogram = study.roundsHistogram();
+
+        System.out.println("Number of total cards is " + cardTotal);
+        System.out.printf("Played %d random games with seed %d on %d thread(s) in %.3f s: %.0f games/s%n",
+                games, seed, threads, elapsed / 1e9, games / (elapsed / 1e9));
+        System.out.printf("Rounds to finish or to enter a cycle: mean %.2f, max %d%n",
+                study.meanRounds(), study.maxRounds());
+
+        for (int rounds = 0; rounds < histogram.length; rounds++) {
+            if (histogram[rounds] > 0) {
+                System.out.println("[" + rounds + "] " + histogram[rounds]);
+            }
         }
     }
 
@@ -0,0 +1,208 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ Class ConvergenceStudy
+ plays a number of Bulgarian Solitaire games from random initial configurations, dealt the same way as by
+ new SolitaireBoard(), and counts how many rounds every game takes to finish, or to enter the cycle it ends in if the
+ number of cards is not triangular. Nothing is printed while the games are played.
+ The games are shared out in chunks of CHUNK_GAMES between a number of threads. Every chunk has its own
+ SplittableRandom, split off a random generator seeded with the seed in chunk order before any game is played, and
+ its own histogram of rounds, which are added up at the end. So the threads share nothing while they play, and the
+ results only depend on the seed, not on the number of threads or on which thread plays which chunk.
+ */
+
+public class ConvergenceStudy {
+
+    private static final int CHUNK_GAMES = 1 << 14;
+    // the number of games played by one task
+
+    private int cardTotal;
+    private long games;
+    private long seed;
+
+    private long[] histogram = new long[1];
+    // the element at index r is the number of games that took r rounds
+
+
+    /**
+     Creates a study and plays its games.
+     PRE: cardTotal >= 1, games >= 1, threads >= 1
+
+     @ param cardTotal  the number of cards
+     @ param games  the number of games to play
+     @ param seed  the seed of the random initial configurations
+     @ param threads  the number of threads to play the games on
+
+     @ throws InterruptedException  if the thread is interrupted while it waits for the games
+     */
+    public ConvergenceStudy(int cardTotal, long games, long seed, int threads) throws InterruptedException {
+
+        this.cardTotal = cardTotal;
+        this.games = games;
+        this.seed = seed;
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<long[]>> chunks = new ArrayList<Future<long[]>>();
+        SplittableRandom root = new SplittableRandom(seed);
+
+        try {
+            for (long first = 0; first < games; first += CHUNK_GAMES) {
+
+                int chunkGames = (int) Math.min(CHUNK_GAMES, games - first);
+                SplittableRandom random = root.split();
+
+                chunks.add(pool.submit(() -> playChunk(chunkGames, random)));
+            }
+
+            for (Future<long[]> chunk : chunks) {
+                add(chunk.get());
+            }
+
+        } catch (ExecutionException exception) {
+            throw new IllegalStateException("Cannot play the games", exception.getCause());
+
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+
+    /**
+     Returns the number of cards.
+
+     @ return  the number of cards
+     */
+    public int getCardTotal() {
+        return cardTotal;
+    }
+
+
+    /**
+     Returns the number of games played.
+
+     @ return  the number of games
+     */
+    public long getGames() {
+        return games;
+    }
+
+
+    /**
+     Returns the seed of the random initial configurations.
+
+     @ return  the seed
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+
+    /**
+     Returns the number of games that took every number of rounds.
+
+     @ return  an array whose element at index r is the number of games that took r rounds
+     */
+    public long[] roundsHistogram() {
+        return Arrays.copyOf(histogram, histogram.length);
+    }
+
+
+    /**
+     Returns the mean of the rounds of the games.
+
+     @ return  the mean number of rounds
+     */
+    public double meanRounds() {
+
+        double totalRounds = 0;
+
+        for (int rounds = 0; rounds < histogram.length; rounds++) {
+            totalRounds += (double) rounds * histogram[rounds];
+        }
+
+        return totalRounds / games;
+    }
+
+
+    /**
+     Returns the largest number of rounds a game took.
+
+     @ return  the largest number of rounds
+     */
+    public int maxRounds() {
+        return histogram.length - 1;
+    }
+
+
+    /**
+     Plays a chunk of games on one board, dealt again for every game.
+
+     @ param chunkGames  the number of games
+     @ param random  the random generator of the chunk
+
+     @ return  an array whose element at index r is the number of games of the chunk that took r rounds
+     */
+    private long[] playChunk(int chunkGames, SplittableRandom random) {
+
+        SolitaireBoard board = new SolitaireBoard(cardTotal, random);
+        long[] counts = new long[1];
+
+        for (int game = 0; game < chunkGames; game++) {
+
+            if (game > 0) {
+                board.deal(random);
+            }
+
+            int rounds = 0;
+
+            if (board.getNumFinalPiles() > 0) {
+
+                while (!board.isDone()) {
+                    board.playRound();
+                    rounds++;
+                }
+
+            } else {
+
+                rounds = board.findCycle().getEntryRound();
+            }
+
+            if (rounds >= counts.length) {
+                counts = Arrays.copyOf(counts, Math.max(rounds + 1, 2 * counts.length));
+            }
+
+            counts[rounds]++;
+        }
+
+        return counts;
+    }
+
+
+    /**
+     Adds the histogram of a chunk to the histogram of the study, which only grows as far as the largest rounds.
+     */
+    private void add(long[] counts) {
+
+        int length = counts.length;
+
+        while (length > 1 && counts[length - 1] == 0) {
+            length--;
+        }
+
+        if (length > histogram.length) {
+            histogram = Arrays.copyOf(histogram, length);
+        }
+
+        for (int rounds = 0; rounds < length; rounds++) {
+            histogram[rounds] += counts[rounds];
+        }
+    }
+
+}
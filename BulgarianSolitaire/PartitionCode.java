@@ -0,0 +1,287 @@
+import java.util.Arrays;
+
+/**
+ Class PartitionCode
+ the canonical code of a Bulgarian Solitaire configuration: its pile sizes as a partition packed into a long.
+ Going through the piles from the smallest to the largest, the code has a 0 bit for every card the pile size goes up
+ by, and a 1 bit for every pile, starting at the lowest bit. For example, the piles 3 1 1 are coded as 0 1 1 0 0 1
+ from the lowest bit, that is 0b100110. It is the outline of the Young diagram of the partition, so a partition of
+ n cards takes at most n + 1 bits, and two configurations have the same code iff they have the same pile sizes in
+ any order.
+ A code is compared and hashed as a long, and a round can be played on it with a few bit operations, without
+ building the piles (see playRound).
+ The partitions of more than MAX_CARD_TOTAL cards, up to MAX_WIDE_CARD_TOTAL, take a wide code of two longs, the low
+ 64 bits and the high 64 bits of the same outline, kept in a long array of length 2 and played on in place.
+ */
+
+public class PartitionCode {
+
+    public static final int MAX_CARD_TOTAL = Long.SIZE - 1;
+    // the largest number of cards whose partitions all fit in a long
+
+    public static final int MAX_WIDE_CARD_TOTAL = 2 * Long.SIZE - 1;
+    // the largest number of cards whose partitions all fit in a wide code of two longs
+
+
+    /**
+     Returns the code of some piles.
+     PRE: 1 <= every pile, and the piles add up to at most MAX_CARD_TOTAL
+
+     @ param piles  the number of cards in each pile, in any order
+     @ param numPiles  the number of piles, in piles locations: [0, numPiles - 1]
+
+     @ return  the code of the piles
+
+     @ throws IllegalArgumentException  if the code of the piles does not fit in a long
+     */
+    public static long encode(int[] piles, int numPiles) {
+
+        int[] sorted = Arrays.copyOf(piles, numPiles);
+        Arrays.sort(sorted);
+
+        long code = 0;
+        int bit = 0;
+        int size = 0;
+
+        for (int i = 0; i < numPiles; i++) {
+
+            // a 0 bit for every card the size goes up by, which leaves them clear
+            bit += sorted[i] - size;
+            size = sorted[i];
+
+            // a shift of 64 or more would wrap round and set a low bit instead
+            if (bit >= Long.SIZE) {
+                throw new IllegalArgumentException("Too many cards for a partition code: more than " + MAX_CARD_TOTAL);
+            }
+
+            code |= 1L << bit++;
+        }
+
+        return code;
+    }
+
+
+    /**
+     Puts the wide code of some piles into a long array: the low long at index 0 and the high long at index 1.
+     PRE: 1 <= every pile, and the piles add up to at most MAX_WIDE_CARD_TOTAL
+
+     @ param piles  the number of cards in each pile, in any order
+     @ param numPiles  the number of piles, in piles locations: [0, numPiles - 1]
+     @ param code  the array the code is put in, of length 2
+
+     @ throws IllegalArgumentException  if the code of the piles does not fit in two longs
+     */
+    public static void encode(int[] piles, int numPiles, long[] code) {
+
+        int[] sorted = Arrays.copyOf(piles, numPiles);
+        Arrays.sort(sorted);
+
+        code[0] = 0;
+        code[1] = 0;
+        int bit = 0;
+        int size = 0;
+
+        for (int i = 0; i < numPiles; i++) {
+
+            bit += sorted[i] - size;
+            size = sorted[i];
+
+            if (bit >= 2 * Long.SIZE) {
+                throw new IllegalArgumentException("Too many cards for a wide partition code: more than "
+                        + MAX_WIDE_CARD_TOTAL);
+            }
+
+            code[bit / Long.SIZE] |= 1L << bit++;
+        }
+    }
+
+
+    /**
+     Returns the number of piles of a code.
+
+     @ param code  a code
+
+     @ return  the number of piles
+     */
+    public static int numPiles(long code) {
+        return Long.bitCount(code);
+    }
+
+
+    /**
+     Returns the code of the final configuration with a number of piles: 1, 2, 3, . . . , numFinalPiles.
+
+     @ param numFinalPiles  the number of piles, 1 <= numFinalPiles, numFinalPiles * (numFinalPiles + 1) / 2 <= MAX_CARD_TOTAL
+
+     @ return  the code, 0 1 repeated numFinalPiles times from the lowest bit
+     */
+    public static long finalCode(int numFinalPiles) {
+
+        long code = 0;
+
+        for (int i = 0; i < numFinalPiles; i++) {
+            code |= 2L << (2 * i);
+        }
+
+        return code;
+    }
+
+
+    /**
+     Returns the code after one round of Bulgarian solitaire: one card is taken from each pile and they all make a
+     new pile.
+
+     @ param code  a code
+
+     @ return  the code of the next configuration
+     */
+    public static long playRound(long code) {
+
+        int numPiles = Long.bitCount(code);
+
+        // every pile loses a card: the lowest bit, the step up from no cards to the smallest pile, goes;
+        // the piles of one card are left empty, and the 1 bits at the bottom they have become go too
+        code >>>= 1;
+        code >>>= Long.numberOfTrailingZeros(~code);
+
+        // the new pile of numPiles cards goes after the numPiles-th 0 bit; above the top of the code every bit is 0,
+        // so a new pile larger than all the others goes on top
+        long zeros = ~code;
+
+        for (int i = 1; i < numPiles; i++) {
+            zeros &= zeros - 1;
+        }
+
+        int at = Long.numberOfTrailingZeros(zeros) + 1;
+        long below = code & ((1L << at) - 1);
+
+        return below | (1L << at) | ((code - below) << 1);
+    }
+
+
+    /**
+     Plays one round of Bulgarian solitaire on a wide code, the same way as playRound(long) does on a code: the low
+     long and the high long are shifted as one 128-bit number, and the bits that cross from one to the other are
+     carried over by hand.
+
+     @ param code  a wide code, the low long at index 0 and the high long at index 1; it is changed to the code of
+                   the next configuration
+     */
+    public static void playRound(long[] code) {
+
+        long low = code[0];
+        long high = code[1];
+        int numPiles = Long.bitCount(low) + Long.bitCount(high);
+
+        // every pile loses a card: the lowest bit goes, and then the 1 bits at the bottom
+        low = (low >>> 1) | (high << (Long.SIZE - 1));
+        high >>>= 1;
+
+        int ones = Long.numberOfTrailingZeros(~low);
+
+        if (ones == Long.SIZE) {
+            // every pile of the low long had one card; a code of at most MAX_WIDE_CARD_TOTAL cards has a 0 bit above
+            low = high >>> Long.numberOfTrailingZeros(~high);
+            high = 0;
+        } else if (ones > 0) {
+            low = (low >>> ones) | (high << (Long.SIZE - ones));
+            high >>>= ones;
+        }
+
+        // the new pile of numPiles cards goes after the numPiles-th 0 bit, which is in the high long if the low long
+        // has fewer 0 bits
+        int lowZeros = Long.SIZE - Long.bitCount(low);
+        long zeros = numPiles <= lowZeros ? ~low : ~high;
+
+        for (int i = numPiles <= lowZeros ? 1 : lowZeros + 1; i < numPiles; i++) {
+            zeros &= zeros - 1;
+        }
+
+        int at = Long.numberOfTrailingZeros(zeros) + 1 + (numPiles <= lowZeros ? 0 : Long.SIZE);
+
+        // the bits from at up move up by one to make room for the bit of the new pile
+        if (at < Long.SIZE) {
+            long below = low & ((1L << at) - 1);
+            code[1] = (high << 1) | (low >>> (Long.SIZE - 1));
+            code[0] = below | (1L << at) | ((low - below) << 1);
+        } else {
+            long below = high & ((1L << (at - Long.SIZE)) - 1);
+            code[1] = below | (1L << at) | ((high - below) << 1);
+            code[0] = low;
+        }
+    }
+
+
+    /**
+     Returns a hash of a code, spreading its bits over all the bits of an int.
+
+     @ param code  a code
+
+     @ return  the hash
+     */
+    public static int hash(long code) {
+
+        // the finalizer of MurmurHash3
+        code ^= code >>> 33;
+        code *= 0xff51afd7ed558ccdL;
+        code ^= code >>> 33;
+        code *= 0xc4ceb9fe1a85ec53L;
+        code ^= code >>> 33;
+
+        return (int) code;
+    }
+
+
+    /**
+     Returns a hash of a wide code; a wide code whose high long is 0 has the same hash as its low long as a code.
+
+     @ param low  the low long of the code
+     @ param high  the high long of the code
+
+     @ return  the hash
+     */
+    public static int hash(long low, long high) {
+        return hash(low ^ high * 0x9e3779b97f4a7c15L);
+    }
+
+
+    /**
+     Returns the configuration string of a code: the pile sizes in descending order, separated by spaces.
+
+     @ param code  a code
+
+     @ return  the configuration string
+     */
+    public static String toString(long code) {
+        return toString(code, 0);
+    }
+
+
+    /**
+     Returns the configuration string of a wide code: the pile sizes in descending order, separated by spaces.
+
+     @ param low  the low long of the code
+     @ param high  the high long of the code
+
+     @ return  the configuration string
+     */
+    public static String toString(long low, long high) {
+
+        StringBuilder config = new StringBuilder();
+        int size = 0;
+        int top = high == 0 ? Long.SIZE - Long.numberOfLeadingZeros(low) : 2 * Long.SIZE - Long.numberOfLeadingZeros(high);
+
+        // the piles come out smallest first, so each is put at the start
+        for (int bit = 0; bit < top; bit++) {
+
+            if (((bit < Long.SIZE ? low : high) & (1L << bit)) == 0) {
+                size++;
+            } else {
+                config.insert(0, config.length() == 0 ? Integer.toString(size) : size + " ");
+            }
+        }
+
+        return config.toString();
+    }
+
+}
@@ -0,0 +1,172 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ Class PartitionCodeTester
+ tests PartitionCode against SolitaireBoard: random games of every number of cards up to PartitionCode.MAX_CARD_TOTAL
+ are played on a board and on its code side by side, and after every round the code played with
+ PartitionCode.playRound must be the code of the board, with the same number of piles and the same configuration.
+ The final configuration of every triangular number of cards must have PartitionCode.finalCode.
+ Wide codes are tested the same way up to PartitionCode.MAX_WIDE_CARD_TOTAL cards against the wide code of the board's
+ piles, and below that against the codes, which they must equal with a high long of 0.
+ Every test prints its number of mismatches, which should be 0.
+ */
+
+public class PartitionCodeTester {
+
+    private static final int GAMES = 200;
+    // the random games played for every number of cards
+
+    private static final int ROUNDS = 100;
+    // the rounds played in every game, enough to reach a cycle from most configurations
+
+
+    public static void main(String args[]) {
+
+        SplittableRandom random = new SplittableRandom(2019);
+
+        int codeMismatches = 0;
+        int pileMismatches = 0;
+        int configMismatches = 0;
+        long roundsPlayed = 0;
+
+        for (int cardTotal = 1; cardTotal <= PartitionCode.MAX_CARD_TOTAL; cardTotal++) {
+            for (int game = 0; game < GAMES; game++) {
+
+                SolitaireBoard board = new SolitaireBoard(cardTotal, random);
+                long code = board.partitionCode();
+
+                for (int round = 0; round < ROUNDS; round++) {
+
+                    board.playRound();
+                    code = PartitionCode.playRound(code);
+                    roundsPlayed++;
+
+                    if (code != board.partitionCode()) {
+                        codeMismatches++;
+                        code = board.partitionCode(); // carry on from the right configuration
+                    }
+
+                    if (PartitionCode.numPiles(code) != board.configString().split(" ").length) {
+                        pileMismatches++;
+                    }
+
+                    if (!PartitionCode.toString(code).equals(sortedConfig(board))) {
+                        configMismatches++;
+                    }
+                }
+            }
+        }
+
+        System.out.println("Played " + roundsPlayed + " rounds of up to " + PartitionCode.MAX_CARD_TOTAL + " cards");
+        System.out.println("playRound codes that differ from the board [exp:0]: " + codeMismatches);
+        System.out.println("numPiles that differ from the board [exp:0]: " + pileMismatches);
+        System.out.println("toString that differ from the board [exp:0]: " + configMismatches);
+
+        int finalMismatches = 0;
+
+        for (int numFinalPiles = 1; numFinalPiles * (numFinalPiles + 1) / 2 <= PartitionCode.MAX_CARD_TOTAL; numFinalPiles++) {
+
+            SolitaireBoard board = new SolitaireBoard(numFinalPiles * (numFinalPiles + 1) / 2, random);
+
+            while (!board.isDone()) {
+                board.playRound();
+            }
+
+            if (board.partitionCode() != PartitionCode.finalCode(numFinalPiles)) {
+                finalMismatches++;
+            }
+        }
+
+        System.out.println("finalCode that differ from the final board [exp:0]: " + finalMismatches);
+
+        int wideMismatches = 0;
+        int wideConfigMismatches = 0;
+        long[] code = new long[2];
+        long[] expected = new long[2];
+        roundsPlayed = 0;
+
+        for (int cardTotal = 1; cardTotal <= PartitionCode.MAX_WIDE_CARD_TOTAL; cardTotal++) {
+            for (int game = 0; game < GAMES; game++) {
+
+                SolitaireBoard board = new SolitaireBoard(cardTotal, random);
+                encode(board, code);
+
+                for (int round = 0; round < ROUNDS; round++) {
+
+                    board.playRound();
+                    PartitionCode.playRound(code);
+                    roundsPlayed++;
+                    encode(board, expected);
+
+                    boolean narrow = cardTotal <= PartitionCode.MAX_CARD_TOTAL;
+
+                    if (code[0] != expected[0] || code[1] != expected[1]
+                            || (narrow && (code[0] != board.partitionCode() || code[1] != 0))) {
+                        wideMismatches++;
+                        encode(board, code); // carry on from the right configuration
+                    }
+
+                    if (!PartitionCode.toString(code[0], code[1]).equals(sortedConfig(board))) {
+                        wideConfigMismatches++;
+                    }
+                }
+            }
+        }
+
+        System.out.println("Played " + roundsPlayed + " rounds on wide codes of up to " + PartitionCode.MAX_WIDE_CARD_TOTAL
+                + " cards");
+        System.out.println("wide playRound codes that differ from the board [exp:0]: " + wideMismatches);
+        System.out.println("wide toString that differ from the board [exp:0]: " + wideConfigMismatches);
+    }
+
+
+    /**
+     Puts the wide code of the piles of a board into a long array.
+
+     @ param board  a board
+     @ param code  the array the code is put in, of length 2
+     */
+
+    private static void encode(SolitaireBoard board, long[] code) {
+
+        String[] piles = board.configString().split(" ");
+        int[] sizes = new int[piles.length];
+
+        for (int i = 0; i < piles.length; i++) {
+            sizes[i] = Integer.parseInt(piles[i]);
+        }
+
+        PartitionCode.encode(sizes, sizes.length, code);
+    }
+
+
+    /**
+     Returns the configuration string of a board with its piles in descending order, the way PartitionCode.toString
+     writes them.
+
+     @ param board  a board
+
+     @ return  the pile sizes of the board in descending order, separated by spaces
+     */
+
+    private static String sortedConfig(SolitaireBoard board) {
+
+        String[] piles = board.configString().split(" ");
+        int[] sizes = new int[piles.length];
+
+        for (int i = 0; i < piles.length; i++) {
+            sizes[i] = Integer.parseInt(piles[i]);
+        }
+
+        Arrays.sort(sizes);
+        StringBuilder config = new StringBuilder();
+
+        for (int i = sizes.length - 1; i >= 0; i--) {
+            config.append(sizes[i]).append(i > 0 ? " " : "");
+        }
+
+        return config.toString();
+    }
+
+}
@@ -0,0 +1,301 @@
+import java.util.Arrays;
+
+/**
+ Class PartitionExplorer
+ explores the whole state space of Bulgarian Solitaire for a number of cards.
+ A configuration is a partition of the cards into piles, and since the piles of the next round only depend on the
+ sizes of the piles, not on their order, every configuration is taken as its PartitionCode. The partitions are kept
+ in a PartitionSet and everything known about them in int arrays indexed by their numbers in the set, so there is
+ no object per partition, and the rounds are played on the codes.
+ Every partition of the cards is enumerated, and for each of them the explorer finds the number of rounds it takes to
+ reach a fixed point (the final configuration 1, 2, . . . , NUM_FINAL_PILES when the number of cards is triangular)
+ or to enter a cycle, and the length of that cycle.
+ The transition of every partition is computed once and remembered: following a game stops as soon as it reaches a
+ partition whose number of rounds is already known, so games that merge into the same trajectory share the work,
+ and every partition is expanded exactly once.
+ Up to PartitionCode.MAX_CARD_TOTAL cards, which have over a million partitions, a partition is a code of one long;
+ more cards take a wide code of two longs, up to PartitionCode.MAX_WIDE_CARD_TOTAL, though memory runs out long
+ before that (90 cards have 56 million partitions).
+ */
+
+public class PartitionExplorer {
+
+    private static final int UNKNOWN = -1;
+    // the rounds of a partition that has not been reached yet
+
+    private static final int ON_PATH = -2;
+    // the rounds of a partition on the game being followed
+
+    private int cardTotal;
+
+    private boolean wide;
+    // true iff the partitions are wide codes, for more than PartitionCode.MAX_CARD_TOTAL cards
+
+    private PartitionSet partitions;
+    // every partition of cardTotal; the index of a partition is its number in the set
+
+    private long[] wideCode = new long[2];
+    // the wide code being encoded or played
+
+    private int[] next;
+    // next[i] is the index of the partition after one round from partition i
+
+    private int[] rounds;
+    // rounds[i] is the number of rounds from partition i until a partition on a cycle is reached (0 if i is on one)
+
+    private int[] cycleLength;
+    // cycleLength[i] is the length of the cycle partition i ends in (1 for a fixed point)
+
+
+    /**
+     Creates an explorer of all the partitions of a number of cards and explores them.
+
+     @ param cardTotal  the number of cards
+
+     @ throws IllegalArgumentException  if cardTotal is less than 1 or more than PartitionCode.MAX_WIDE_CARD_TOTAL
+     */
+    public PartitionExplorer(int cardTotal) {
+
+        if (cardTotal < 1 || cardTotal > PartitionCode.MAX_WIDE_CARD_TOTAL) {
+            throw new IllegalArgumentException("Can only explore 1 to " + PartitionCode.MAX_WIDE_CARD_TOTAL + " cards: "
+                    + cardTotal);
+        }
+
+        this.cardTotal = cardTotal;
+        wide = cardTotal > PartitionCode.MAX_CARD_TOTAL;
+        partitions = new PartitionSet(wide);
+
+        enumeratePartitions();
+
+        next = new int[partitions.size()];
+        rounds = new int[partitions.size()];
+        cycleLength = new int[partitions.size()];
+        Arrays.fill(next, UNKNOWN);
+        Arrays.fill(rounds, UNKNOWN);
+
+        for (int i = 0; i < partitions.size(); i++) {
+            if (rounds[i] == UNKNOWN) {
+                follow(i);
+            }
+        }
+    }
+
+
+    /**
+     Returns the number of cards.
+
+     @ return  the number of cards
+     */
+    public int getCardTotal() {
+        return cardTotal;
+    }
+
+
+    /**
+     Returns the number of partitions of the cards.
+
+     @ return  the number of partitions
+     */
+    public int numPartitions() {
+        return partitions.size();
+    }
+
+
+    /**
+     Returns the number of rounds it takes from a partition to reach a partition on a cycle.
+
+     @ param i  the index of the partition, 0 <= i < numPartitions()
+
+     @ return  the number of rounds, 0 if the partition is on a cycle
+     */
+    public int rounds(int i) {
+        return rounds[i];
+    }
+
+
+    /**
+     Returns the length of the cycle a partition ends in.
+
+     @ param i  the index of the partition, 0 <= i < numPartitions()
+
+     @ return  the length of the cycle, 1 if it ends in a fixed point
+     */
+    public int cycleLength(int i) {
+        return cycleLength[i];
+    }
+
+
+    /**
+     Returns a partition as a configuration string: its pile sizes in descending order separated by spaces.
+
+     @ param i  the index of the partition, 0 <= i < numPartitions()
+
+     @ return  the configuration string
+     */
+    public String configString(int i) {
+        return PartitionCode.toString(partitions.code(i), partitions.high(i));
+    }
+
+
+    /**
+     Returns the number of partitions that take every number of rounds to reach a cycle.
+
+     @ return  an array whose element at index r is the number of partitions that take r rounds
+     */
+    public int[] roundsHistogram() {
+
+        int max = 0;
+
+        for (int i = 0; i < rounds.length; i++) {
+            max = Math.max(max, rounds[i]);
+        }
+
+        int[] histogram = new int[max + 1];
+
+        for (int i = 0; i < rounds.length; i++) {
+            histogram[rounds[i]]++;
+        }
+
+        return histogram;
+    }
+
+
+    /**
+     Returns the number of different cycles the partitions end in.
+
+     @ return  the number of cycles, each counted once however long it is
+     */
+    public int numCycles() {
+
+        boolean[] counted = new boolean[rounds.length];
+        int cycles = 0;
+
+        for (int i = 0; i < rounds.length; i++) {
+
+            if (rounds[i] == 0 && !counted[i]) {
+
+                // mark every partition of the cycle, so it is only counted once
+                for (int j = i; !counted[j]; j = next[j]) {
+                    counted[j] = true;
+                }
+
+                cycles++;
+            }
+        }
+
+        return cycles;
+    }
+
+
+    /**
+     Plays the game from partition start until it reaches a partition whose rounds are known or one it has already
+     played in this game, which means the game has entered a cycle, and then sets the rounds of every partition
+     of the game going backwards.
+     */
+    private void follow(int start) {
+
+        int[] path = new int[16];
+        int end = 0;
+        int state = start;
+
+        while (rounds[state] == UNKNOWN) {
+
+            rounds[state] = ON_PATH;
+
+            if (end == path.length) {
+                path = Arrays.copyOf(path, end * 2);
+            }
+
+            path[end++] = state;
+
+            // a partition is only ever expanded here, the first time it is reached
+            if (wide) {
+                wideCode[0] = partitions.code(state);
+                wideCode[1] = partitions.high(state);
+                PartitionCode.playRound(wideCode);
+                next[state] = partitions.indexOf(wideCode[0], wideCode[1]);
+            } else {
+                next[state] = partitions.indexOf(PartitionCode.playRound(partitions.code(state)));
+            }
+
+            state = next[state];
+        }
+
+        int afterEnd; // the rounds of the partition after the last one of the path
+        int length;   // the length of the cycle the path ends in
+
+        if (rounds[state] == ON_PATH) {
+
+            // the path has run into itself: path[from, end) is a cycle
+            int from = end - 1;
+
+            while (path[from] != state) {
+                from--;
+            }
+
+            length = end - from;
+
+            for (int j = from; j < end; j++) {
+                rounds[path[j]] = 0;
+                cycleLength[path[j]] = length;
+            }
+
+            end = from;
+            afterEnd = 0;
+
+        } else {
+
+            afterEnd = rounds[state];
+            length = cycleLength[state];
+        }
+
+        for (int j = end - 1; j >= 0; j--) {
+            rounds[path[j]] = afterEnd + end - j;
+            cycleLength[path[j]] = length;
+        }
+    }
+
+
+    /**
+     Enumerate every partition of cardTotal in reverse lexicographic order, from cardTotal alone to all ones.
+     */
+    private void enumeratePartitions() {
+
+        int[] parts = new int[cardTotal];
+        int numParts = 1;
+        parts[0] = cardTotal;
+
+        while (true) {
+
+            if (wide) {
+                PartitionCode.encode(parts, numParts, wideCode);
+                partitions.add(wideCode[0], wideCode[1]);
+            } else {
+                partitions.add(PartitionCode.encode(parts, numParts));
+            }
+
+            // find the last part greater than 1, taking the ones after it away
+            int ones = 0;
+
+            while (numParts > 0 && parts[numParts - 1] == 1) {
+                ones++;
+                numParts--;
+            }
+
+            if (numParts == 0) {
+                return; // all ones was the last partition
+            }
+
+            // take one from it and share the rest out in parts no greater than it
+            parts[numParts - 1]--;
+            int size = parts[numParts - 1];
+            int rest = ones + 1;
+
+            while (rest > 0) {
+                parts[numParts++] = Math.min(size, rest);
+                rest -= Math.min(size, rest);
+            }
+        }
+    }
+
+}
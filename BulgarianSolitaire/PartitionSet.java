@@ -0,0 +1,199 @@
+import java.util.Arrays;
+
+/**
+ Class PartitionSet
+ a set of partition codes (see PartitionCode) that numbers them 0, 1, 2, . . . in the order they are added, so that
+ facts about every partition can be kept in plain arrays indexed by its number.
+ The codes are kept in a long array in the order they are added, and an open addressing hash table of ints with
+ linear probing maps a code to its number. There is no object per code, so a set of a million codes takes about
+ 20 MB. A set of wide codes (see PartitionCode.MAX_WIDE_CARD_TOTAL) keeps the two longs of every code next to each
+ other in the same array, so it takes 8 MB more per million codes; a set of codes keeps only their low longs.
+ */
+
+public class PartitionSet {
+
+    private static final int EMPTY = -1;
+    // a slot of the table with no code
+
+    private int width;
+    // the number of longs of every code: 1, or 2 for wide codes
+
+    private long[] codes;
+    // the codes in the order they were added, code i in locations: [i * width, (i + 1) * width - 1]
+
+    private int[] table = new int[32];
+    // the number of a code, at the slot of its hash or at the next slot after it that is not EMPTY;
+    // the length of table is a power of two, and at least twice size
+
+    private int size = 0;
+
+
+    /**
+     Creates an empty set of codes.
+     */
+    public PartitionSet() {
+        this(false);
+    }
+
+
+    /**
+     Creates an empty set of codes or of wide codes.
+
+     @ param wide  true for a set of wide codes, whose high longs are kept too
+     */
+    public PartitionSet(boolean wide) {
+        width = wide ? 2 : 1;
+        codes = new long[16 * width];
+        Arrays.fill(table, EMPTY);
+    }
+
+
+    /**
+     Returns the number of codes in the set.
+
+     @ return  the number of codes
+     */
+    public int size() {
+        return size;
+    }
+
+
+    /**
+     Returns the code with a number, or the low long of a wide code.
+
+     @ param i  the number of the code, 0 <= i < size()
+
+     @ return  the code
+     */
+    public long code(int i) {
+        return codes[i * width];
+    }
+
+
+    /**
+     Returns the high long of the wide code with a number.
+
+     @ param i  the number of the code, 0 <= i < size()
+
+     @ return  the high long of the code, 0 if the set is not of wide codes
+     */
+    public long high(int i) {
+        return width == 1 ? 0 : codes[i * width + 1];
+    }
+
+
+    /**
+     Returns the number of a code.
+
+     @ param code  a code
+
+     @ return  the number of code, or -1 if it is not in the set
+     */
+    public int indexOf(long code) {
+        return indexOf(code, 0);
+    }
+
+
+    /**
+     Returns the number of a wide code.
+
+     @ param low  the low long of the code
+     @ param high  the high long of the code, 0 in a set that is not of wide codes
+
+     @ return  the number of the code, or -1 if it is not in the set
+     */
+    public int indexOf(long low, long high) {
+        return table[find(low, high)];
+    }
+
+
+    /**
+     Adds a code to the set if it is not in it yet.
+
+     @ param code  a code
+
+     @ return  the number of code: size() - 1 if it has been added
+     */
+    public int add(long code) {
+        return add(code, 0);
+    }
+
+
+    /**
+     Adds a wide code to the set if it is not in it yet.
+
+     @ param low  the low long of the code
+     @ param high  the high long of the code, 0 in a set that is not of wide codes
+
+     @ return  the number of the code: size() - 1 if it has been added
+     */
+    public int add(long low, long high) {
+
+        int slot = find(low, high);
+
+        if (table[slot] != EMPTY) {
+            return table[slot];
+        }
+
+        if ((size + 1) * width > codes.length) {
+            codes = Arrays.copyOf(codes, codes.length * 2);
+        }
+
+        codes[size * width] = low;
+
+        if (width == 2) {
+            codes[size * width + 1] = high;
+        }
+
+        table[slot] = size;
+        size++;
+
+        if (2 * size > table.length) {
+            rehash();
+        }
+
+        return size - 1;
+    }
+
+
+    /**
+     Returns the slot of the table with the number of a code, or the EMPTY slot the code would go in.
+     */
+    private int find(long low, long high) {
+
+        int mask = table.length - 1;
+        int slot = PartitionCode.hash(low, high) & mask;
+
+        for (; table[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (code(table[slot]) == low && high(table[slot]) == high) {
+                break;
+            }
+        }
+
+        return slot;
+    }
+
+
+    /**
+     Doubles the table and puts every code back into it.
+     */
+    private void rehash() {
+
+        table = new int[table.length * 2];
+        Arrays.fill(table, EMPTY);
+
+        int mask = table.length - 1;
+
+        for (int i = 0; i < size; i++) {
+
+            int slot = PartitionCode.hash(code(i), high(i)) & mask;
+
+            while (table[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+
+            table[slot] = i;
+        }
+    }
+
+}
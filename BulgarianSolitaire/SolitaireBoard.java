@@ -1,12 +1,13 @@
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Random;
-import java.util.HashSet;
+import java.util.SplittableRandom;
 
 /*
   class SolitaireBoard
-  The board for Bulgarian Solitaire.  You can change what the total number of cards is for the game
-  by changing NUM_FINAL_PILES, below.  Don't change CARD_TOTAL directly, because there are only some values
-  for CARD_TOTAL that result in a game that terminates.
+  The board for Bulgarian Solitaire.  The total number of cards is CARD_TOTAL unless another one is given when the
+  board is created.  Only some totals result in a game that terminates: with any other total the game ends up going
+  round a cycle of configurations for ever, which findCycle() detects.
   (See comments below next to named constant declarations for more details on this.)
 */
 
@@ -14,10 +15,11 @@ import java.util.HashSet;
 public class SolitaireBoard {
 
     public static final int NUM_FINAL_PILES = 9;
-    // number of piles in a final configuration
+    // number of piles in a final configuration of the default number of cards
     // (note: if NUM_FINAL_PILES is 9, then CARD_TOTAL below will be 45)
 
     public static final int CARD_TOTAL = NUM_FINAL_PILES * (NUM_FINAL_PILES + 1) / 2;
+    // the default number of cards
     // bulgarian solitaire only terminates if CARD_TOTAL is a triangular number.
     // see: http://en.wikipedia.org/wiki/Bulgarian_solitaire for more details
     // the above formula is the closed form for 1 + 2 + 3 + . . . + NUM_FINAL_PILES
@@ -27,21 +29,39 @@ public class SolitaireBoard {
 
     /**
      Representation invariant:
-     - cardPiles array stores the number of cards for every piles
-     - 1 <= the number of cards in each pile <= CARD_TOTAL
+     - cardPiles array stores the number of cards for every piles, and cardPiles.length == cardTotal
+     - 1 <= the number of cards in each pile <= cardTotal
      - the number of cards each pile cannot be zero
      - numPiles is the number of card piles
-     - 1 <= numPiles <= CARD_TOTAL
-     - sum of cards in every piles equals CARD_TOTAL
+     - 1 <= numPiles <= cardTotal
+     - sum of cards in every piles equals cardTotal
      - the number of cards for every piles are in cardPiles locations: [0, numPiles - 1]
+     - numFinalPiles * (numFinalPiles + 1) / 2 == cardTotal, or numFinalPiles is 0 if cardTotal is not triangular
+     - sizeCount[(size + sizeOffset) % (cardTotal + 1)] is the number of piles with size cards, 0 <= size <= cardTotal
+     - numFinalSizes is the number of sizes 1, 2, 3, . . . , numFinalPiles that some pile has
      */
 
-    private int[] cardPiles = new int[CARD_TOTAL];
+    private int cardTotal;
+    // the number of cards
+
+    private int numFinalPiles;
+    // number of piles in a final configuration, 0 if there is none
+
+    private int[] cardPiles;
     // the element at one index means the number of cards in each pile
 
     private int numPiles = 0;
     // the number of card piles, it would be changed value after playing rounds
 
+    private int[] sizeCount;
+    private int sizeOffset = 0;
+    // the number of piles of every size, kept up to date by every round so that isDone() does not look at the piles.
+    // A round takes a card from every pile, so it moves every count down one size: rather than moving the counts,
+    // sizeOffset goes up by one, and the count of a size is at its own location plus sizeOffset, going round the array
+
+    private int numFinalSizes = 0;
+    // the number of the sizes of a final configuration the piles have; the game is done when they have them all
+
 
     /**
      Creates a solitaire board with the configuration specified in piles.
@@ -51,6 +71,20 @@ public class SolitaireBoard {
      @param piles  the number of cards in each pile from user input
      */
     public SolitaireBoard(ArrayList<Integer> piles) {
+        this(CARD_TOTAL, piles);
+    }
+
+
+    /**
+     Creates a solitaire board of any number of cards with the configuration specified in piles.
+     PRE: cardTotal >= 1, and piles contains a sequence of positive numbers that sum to cardTotal
+
+     @ param cardTotal  the number of cards
+     @ param piles  the number of cards in each pile
+     */
+    public SolitaireBoard(int cardTotal, ArrayList<Integer> piles) {
+
+        setCardTotal(cardTotal);
 
         // store the number of cards in each pile on Partially-filled arrays according to assignment requirement
         for (int i = 0; i < piles.size(); i++) {
@@ -58,6 +92,8 @@ public class SolitaireBoard {
             numPiles++;
         }
 
+        countSizes();
+
         // assert statement, check the solitaire board data is in a valid state
         assert isValidSolitaireBoard();
 
@@ -68,12 +104,25 @@ public class SolitaireBoard {
      Creates a solitaire board with a random initial configuration.
      */
     public SolitaireBoard() {
+        this(CARD_TOTAL);
+    }
+
 
-        int cardsLeft = CARD_TOTAL; // create "CARD_TOTAL" cards, check the cards is enough or not after random creating
+    /**
+     Creates a solitaire board of any number of cards with a random initial configuration.
+     PRE: cardTotal >= 1
+
+     @ param cardTotal  the number of cards
+     */
+    public SolitaireBoard(int cardTotal) {
+
+        setCardTotal(cardTotal);
+
+        int cardsLeft = cardTotal; // create "cardTotal" cards, check the cards is enough or not after random creating
         int index = 0;
         Random rand = new Random();
 
-        // random creating cards till the number of cards equals CARD_TOTAL
+        // random creating cards till the number of cards equals cardTotal
         while (cardsLeft > 0) {
 
             // nextInt(int bound) method return the random number between 0 (inclusive) and bound (exclusive), so we need to add one
@@ -84,10 +133,82 @@ public class SolitaireBoard {
         }
 
         numPiles = index; // the number of cards in each pile stores in cardPiles array location: [0, insex - 1]
+        countSizes();
+        assert isValidSolitaireBoard();
+    }
+
+
+    /**
+     Creates a solitaire board of any number of cards with a random initial configuration from a random generator,
+     so that the same generator gives the same configuration.
+     PRE: cardTotal >= 1
+
+     @ param cardTotal  the number of cards
+     @ param random  the random generator
+     */
+    public SolitaireBoard(int cardTotal, SplittableRandom random) {
+
+        setCardTotal(cardTotal);
+        deal(random);
+    }
+
+
+    /**
+     Starts the board again with a new random initial configuration, dealt the same way as by SolitaireBoard(), so
+     that many games can be played on one board.
+
+     @ param random  the random generator
+     */
+    public void deal(SplittableRandom random) {
+
+        int cardsLeft = cardTotal;
+        int index = 0;
+
+        // random creating cards till the number of cards equals cardTotal
+        while (cardsLeft > 0) {
+            cardPiles[index] = random.nextInt(cardsLeft) + 1;
+            cardsLeft = cardsLeft - cardPiles[index];
+            index++;
+        }
+
+        numPiles = index;
+        countSizes();
         assert isValidSolitaireBoard();
     }
 
 
+    /**
+     Creates a copy of a solitaire board, which then plays on its own.
+
+     @ param other  the board to copy
+     */
+    public SolitaireBoard(SolitaireBoard other) {
+
+        setCardTotal(other.cardTotal);
+        copyFrom(other);
+    }
+
+
+    /**
+     Returns the number of cards.
+
+     @ return  the number of cards
+     */
+    public int getCardTotal() {
+        return cardTotal;
+    }
+
+
+    /**
+     Returns the number of piles in a final configuration.
+
+     @ return  the number of piles, or 0 if the number of cards is not triangular, so the game never ends
+     */
+    public int getNumFinalPiles() {
+        return numFinalPiles;
+    }
+
+
     /**
      Plays one round of Bulgarian solitaire.  Updates the configuration according to the rules
      of Bulgarian solitaire: Takes one card from each pile, and puts them all together in a new pile.
@@ -110,83 +231,247 @@ public class SolitaireBoard {
 
         }
 
+        // every count moves down one size: the piles of one card are gone, and the sizes of a final configuration
+        // lose size 1 and gain the size above them
+        if (numFinalPiles > 0) {
+
+            if (sizeCount[slot(1)] > 0) {
+                numFinalSizes--;
+            }
+
+            if (numFinalPiles + 1 <= cardTotal && sizeCount[slot(numFinalPiles + 1)] > 0) {
+                numFinalSizes++;
+            }
+        }
+
+        // the piles of one card are empty now, and empty piles are not piles
+        sizeOffset = sizeOffset == cardTotal ? 0 : sizeOffset + 1;
+        sizeCount[slot(0)] = 0;
+
         // puts the cards from each pile all together in a new pile
         cardPiles[index] = numPiles;
 
+        if (sizeCount[slot(numPiles)]++ == 0 && numPiles <= numFinalPiles) {
+            numFinalSizes++;
+        }
+
         // numPiles add one because a new pile created
         numPiles = index + 1;
 
-        assert isValidSolitaireBoard();
-
+        // no assert here: checking the whole board every round would cost more than the round, so the board is only
+        // checked where it is built (the constructors, deal and copyFrom)
     }
 
     /**
-     Returns true iff the current board is at the end of the game.  That is, there are NUM_FINAL_PILES
-     piles and their sizes are 1, 2, 3, . . . , NUM_FINAL_PILES in any order.
+     Returns true iff the current board is at the end of the game.  That is, there are getNumFinalPiles()
+     piles and their sizes are 1, 2, 3, . . . , getNumFinalPiles() in any order.  It is never true if the
+     number of cards is not triangular.
+     It takes constant time, using the counts of the pile sizes that every round keeps up to date.
 
      @ return  turn or false means the current board is at the end of the game or not
      */
 
     public boolean isDone() {
 
-        HashSet<Integer> set = new HashSet<Integer>();
+        // numFinalPiles piles with all the sizes 1, 2, 3, . . . , numFinalPiles have each of them once
+        return numFinalPiles > 0 && numPiles == numFinalPiles && numFinalSizes == numFinalPiles;
+    }
+
+
+    /**
+     Returns current board configuration as a string with the format of
+     a space-separated list of numbers with no leading or trailing spaces.
+     The numbers represent the number of cards in each non-empty pile.
+
+     @ return   current board configuration
+     */
+    public String configString() {
 
-        // check there are NUM_FINAL_PILES piles or not
-        if (numPiles == NUM_FINAL_PILES) {
+        StringBuilder currBoardConfig = new StringBuilder();
 
-            // check the piles sizes are 1, 2 , 3, . . . , NUM_FINAL_PILES or not
-            for (int i = 0; i < numPiles; i++) {
+        // put the elements in the cardPiles array into a String, and we don't care about the elements behind numPile
+        for (int i = 0; i < numPiles - 1; i++) {
+            currBoardConfig.append(cardPiles[i]).append(' ');
+        }
 
-                // the number of cards in each pile in the final configuration should greater than 0 and less or equel than NUM_FINAL_PILES
-                if (cardPiles[i] <= 0 || cardPiles[i] > NUM_FINAL_PILES) {
+        currBoardConfig.append(cardPiles[numPiles - 1]);
 
-                    assert isValidSolitaireBoard();
-                    return false;
-                }
+        return currBoardConfig.toString();
+    }
 
-                // a kind of pile sizes ( 1, 2 , 3, . . . , NUM_FINAL_PILES ) can noly occur once
-                // so if the kind of size has already put into hashset, it would return false
-                if(set.contains(cardPiles[i])) {
 
-                    assert isValidSolitaireBoard();
-                    return false;
-                }
+    /**
+     Returns the canonical code of the current board configuration (see PartitionCode): two boards have the same code
+     iff they have the same pile sizes in any order, so codes can be compared, hashed and stored instead of boards.
+     PRE: getCardTotal() <= PartitionCode.MAX_CARD_TOTAL
 
-                set.add(cardPiles[i]);
+     @ return  the code of the current board configuration
+     */
+    public long partitionCode() {
+
+        return PartitionCode.encode(cardPiles, numPiles);
+    }
+
+
+    /**
+     Finds the cycle the game from the current board configuration ends in, with Brent's cycle detection:
+     a board that jumps ahead is compared with a copy left behind, which is moved up to it every time the
+     number of rounds since it was left doubles, until they have the same piles.  That gives the length of
+     the cycle, and two boards that number of rounds apart are then played together from the current
+     configuration until they meet, at the first configuration of the cycle.  Only three boards are used,
+     however long the game is.  A game that terminates ends in a cycle of length 1, its final configuration.
+     The current board is not changed.
+
+     @ return  the round the game enters the cycle in and the length of the cycle
+     */
+    public Cycle findCycle() {
+
+        SolitaireBoard tortoise = new SolitaireBoard(this);
+        SolitaireBoard hare = new SolitaireBoard(this);
+        int power = 1;
+        int length = 1;
+
+        // find the length of the cycle
+        hare.playRound();
+
+        while (!hare.hasSamePiles(tortoise)) {
+
+            if (power == length) {
+                tortoise.copyFrom(hare);
+                power *= 2;
+                length = 0;
             }
 
-            assert isValidSolitaireBoard();
-            return true;
+            hare.playRound();
+            length++;
+        }
+
+        // find the first configuration of the cycle: length rounds later the game is back at it
+        tortoise.copyFrom(this);
+        hare.copyFrom(this);
 
-        } else {
+        for (int i = 0; i < length; i++) {
+            hare.playRound();
+        }
 
-            assert isValidSolitaireBoard();
-            return false;
+        int entryRound = 0;
+
+        while (!hare.hasSamePiles(tortoise)) {
+            tortoise.playRound();
+            hare.playRound();
+            entryRound++;
         }
 
+        return new Cycle(entryRound, length);
     }
 
 
     /**
-     Returns current board configuration as a string with the format of
-     a space-separated list of numbers with no leading or trailing spaces.
-     The numbers represent the number of cards in each non-empty pile.
+     Returns true iff another board of the same number of cards has the same pile sizes in any order.
 
-     @ return   current board configuration
+     @ param other  the other board
+
+     @ return  true or false means the boards have the same piles or not
      */
-    public String configString() {
+    private boolean hasSamePiles(SolitaireBoard other) {
 
-        String currBoardConfig = new String();
+        if (numPiles != other.numPiles) {
+            return false;
+        }
 
-        // put the elements in the cardPiles array into a String, and we don't care about the elements behind numPile
-        for (int i = 0; i < numPiles - 1; i++) {
-            currBoardConfig = currBoardConfig + cardPiles[i] + " ";
+        // with as many piles on both, the piles are the same if every size of this board has the same count on both
+        for (int i = 0; i < numPiles; i++) {
+            if (sizeCount[slot(cardPiles[i])] != other.sizeCount[other.slot(cardPiles[i])]) {
+                return false;
+            }
         }
 
-        currBoardConfig = currBoardConfig + cardPiles[numPiles - 1];
+        return true;
+    }
+
+
+    /**
+     Makes the configuration of this board that of another board of the same number of cards.
+
+     @ param other  the other board
+     */
+    private void copyFrom(SolitaireBoard other) {
+
+        System.arraycopy(other.cardPiles, 0, cardPiles, 0, other.numPiles);
+        System.arraycopy(other.sizeCount, 0, sizeCount, 0, sizeCount.length);
+        numPiles = other.numPiles;
+        sizeOffset = other.sizeOffset;
+        numFinalSizes = other.numFinalSizes;
 
         assert isValidSolitaireBoard();
-        return currBoardConfig;
+    }
+
+
+    /**
+     Counts the piles of every size from scratch.
+     */
+    private void countSizes() {
+
+        Arrays.fill(sizeCount, 0);
+        sizeOffset = 0;
+        numFinalSizes = 0;
+
+        for (int i = 0; i < numPiles; i++) {
+            if (sizeCount[cardPiles[i]]++ == 0 && cardPiles[i] <= numFinalPiles) {
+                numFinalSizes++;
+            }
+        }
+    }
+
+
+    /**
+     Returns the location in sizeCount of the count of a pile size.
+
+     @ param size  the pile size, 0 <= size <= cardTotal
+
+     @ return  the location
+     */
+    private int slot(int size) {
+
+        int slot = size + sizeOffset;
+
+        return slot > cardTotal ? slot - cardTotal - 1 : slot;
+    }
+
+
+    /**
+     Sets the number of cards and the storage for the piles.
+     */
+    private void setCardTotal(int cardTotal) {
+
+        this.cardTotal = cardTotal;
+        cardPiles = new int[cardTotal];
+        sizeCount = new int[cardTotal + 1];
+
+        // the number of cards is triangular iff 8 * cardTotal + 1 is a square
+        int root = (int) Math.round(Math.sqrt(8.0 * cardTotal + 1));
+        numFinalPiles = root * root == 8 * cardTotal + 1 ? (root - 1) / 2 : 0;
+    }
+
+
+    /**
+     The cycle a game ends in: the first round the configuration is on it, counting the initial configuration as
+     round 0, and the number of configurations on it.
+     */
+    public static class Cycle {
+
+        private int entryRound;
+        private int length;
+
+
+        public Cycle(int entryRound, int length) {
+            this.entryRound = entryRound;
+            this.length = length;
+        }
+
+
+        public int getEntryRound() { return entryRound; }
+        public int getLength() { return length; }
     }
 
 
@@ -201,26 +486,49 @@ public class SolitaireBoard {
 
         int totalCards = 0;
 
-        // 1 <= the number of cards in each pile <= CARD_TOTAL
-        if ((numPiles < 1) || (numPiles > CARD_TOTAL)) {
+        // 1 <= numPiles <= cardTotal
+        if ((numPiles < 1) || (numPiles > cardTotal)) {
             return false;
         }
 
-        // 1 <= numPiles <= CARD_TOTAL
+        // 1 <= the number of cards in each pile <= cardTotal
         for (int i = 0; i < numPiles; i++) {
 
-            if (cardPiles[i] < 1 || cardPiles[i] > CARD_TOTAL) {
+            if (cardPiles[i] < 1 || cardPiles[i] > cardTotal) {
                 return false;
             }
 
             totalCards = totalCards + cardPiles[i];
         }
 
-        // sum of cards in every piles equals CARD_TOTAL
-        if (totalCards != CARD_TOTAL) {
+        // sum of cards in every piles equals cardTotal
+        if (totalCards != cardTotal) {
             return false;
         }
 
+        // the counts of the pile sizes add up to numPiles, and every pile is counted
+        int countedPiles = 0;
+        int finalSizes = 0;
+
+        for (int size = 0; size <= cardTotal; size++) {
+
+            countedPiles = countedPiles + sizeCount[slot(size)];
+
+            if (size >= 1 && size <= numFinalPiles && sizeCount[slot(size)] > 0) {
+                finalSizes++;
+            }
+        }
+
+        if (countedPiles != numPiles || finalSizes != numFinalSizes || sizeCount[slot(0)] != 0) {
+            return false;
+        }
+
+        for (int i = 0; i < numPiles; i++) {
+            if (sizeCount[slot(cardPiles[i])] < 1) {
+                return false;
+            }
+        }
+
         return true;
 
     }
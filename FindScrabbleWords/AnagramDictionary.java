@@ -3,21 +3,77 @@
  Note: the processing is case-sensitive; so if the dictionary has all lower
  case words, you will likely want any string you test to have all lower case
  letters too, and likewise if the dictionary words are all upper case.
+ A dictionary can hold several lexicons (word lists) in one index: a word that is in several of
+ them is stored once, with a bit mask of the lexicons it is in, so the dictionary grows with the
+ union of the word lists rather than their sum, and a lookup can be limited to any combination of
+ lexicons without looking anything else up.
  */
-import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Map;
 import java.util.HashMap;
-import java.util.TreeMap;
-import java.util.Scanner;
 
 public class AnagramDictionary {
 
-    // A anagram dictionary built by a map.
-    // The key is also a map comprised of the unique letter in key and its multiplicity in value.
-    // the value is a list of anagrams of the same key
-    private Map<Map<Character, Integer>, ArrayList<String>> anagrams;
+    public static final int ALL_LEXICONS = -1;
+    // the mask of the lexicons to look words up in that selects every lexicon
+
+    public static final int MAX_LEXICONS = Integer.SIZE;
+    // a dictionary holds at most this many lexicons, one bit of an int each
+
+    // The anagram dictionary is an open-addressing hash table keyed on the LetterSignature of each word,
+    // so no key object is created per word.
+    // slots[h] is 0 if the slot is empty, otherwise the index of a bucket plus one.
+    // bucket b has the signature (bucketLow[b], bucketHigh[b]) and its anagrams are
+    // word(bucketStart[b]) .. word(bucketStart[b + 1] - 1)
+    // The tables are buffers so that they can either wrap arrays built in memory or be views of a
+    // memory-mapped DictionarySnapshot.
+    private IntBuffer slots;
+    private LongBuffer bucketLow;
+    private LongBuffer bucketHigh;
+    private IntBuffer bucketStart;
+
+    // The words are stored contiguously in bucket order as their Latin-1 bytes: word i is
+    // pool[wordOffset[i], wordOffset[i + 1]). A String is only created for a word that is returned.
+    // pool and wordOffset wrap arrays in a dictionary built in memory, and are mapped from a snapshot.
+    private IntBuffer wordOffset;
+    private ByteBuffer pool;
+
+    // The score of the words of every bucket (anagrams have the same score), computed once when the
+    // dictionary is created so that results are never rescored.
+    private ScoreTable scoreTable;
+    private int[] bucketScore;
+
+    // Words that cannot be represented by a LetterSignature (upper case letters, punctuation, ...)
+    // are kept in a small map keyed on their letters in sorted order.
+    private Map<String, ArrayList<String>> oddWords;
+
+    // The lexicons of the words of a dictionary of several lexicons: bit j of wordLexicons[i] is set
+    // iff word i is in lexicon j, bucketLexicons[b] is the union of the lexicons of the words of
+    // bucket b, and oddLexicons maps every odd word to its lexicons. They are all null in a
+    // dictionary of one lexicon, all of whose words are in every lexicon mask but 0.
+    private int numLexicons = 1;
+    private int[] wordLexicons;
+    private int[] bucketLexicons;
+    private Map<String, Integer> oddLexicons;
+
+    // Letter-presence masks (bit i for the letter 'a' + i) and a length histogram of the buckets,
+    // to reject a string that cannot be made into a word with one AND and compare, before it is
+    // hashed: lengthCount[n] is the number of words of length n, lengthMask[n] has the letters of
+    // the words of length n and longerMask[n] the letters of the words of length n or more.
+    // oddMask has the letters of the odd words and oddLength is the length of the longest one.
+    private int[] lengthCount;
+    private int[] lengthMask;
+    private int[] longerMask;
+    private int oddMask;
+    private int oddLength;
 
     /**
      Create an anagram dictionary from the list of words given in the file
@@ -27,44 +83,209 @@ public class AnagramDictionary {
      @param fileName  the name of the file to read from
 
      @throws FileNotFoundException  if the file is not found
+     @throws IOException  if the file cannot be read
      */
-    public AnagramDictionary(String fileName) throws FileNotFoundException {
+    public AnagramDictionary(String fileName) throws IOException {
+        this(fileName, new ScoreTable());
+    }
 
-        anagrams = new HashMap<Map<Character, Integer> , ArrayList<String>>();
-        ArrayList<String> temp = new ArrayList<String>();
-        Scanner sc = new Scanner(new File(fileName)); // read the given dictionary file
-        String words = null;
 
-        while(sc.hasNext()) {
+    /**
+     Create an anagram dictionary from the list of words given in the file
+     indicated by fileName, scoring its words with the given score table.
+     PRE: The strings in the file are unique.
 
-            words = sc.next(); // read every words from the dictionary file
+     @param fileName  the name of the file to read from
+     @param scoreTable  the letter scores of the words
+
+     @throws FileNotFoundException  if the file is not found
+     @throws IOException  if the file cannot be read
+     */
+    public AnagramDictionary(String fileName, ScoreTable scoreTable) throws IOException {
 
-            // use TreeMap for storing the key for building the anagram dictionary
-            // the anagrams would have the same key of the anagram dictionary
-            Map<Character, Integer> word = new TreeMap<Character, Integer>();
+        Loader loader = new Loader();
+        oddWords = new HashMap<String, ArrayList<String>>();
 
-            // find every word's component, the unique letters and its multiplicity
-            for (int i = 0; i < words.length(); i++) {
-                char c = words.charAt(i);
+        // read the given dictionary file straight from its mapped bytes;
+        // reader is the current word, whose bytes are copied into the pool, so no String is
+        // created but for the odd words
+        try (MappedWordReader reader = new MappedWordReader(fileName)) {
 
-                if (word.containsKey(c)) {
-                    word.put(c, word.get(c) + 1);
+            while (reader.next()) {
+
+                if (LetterSignature.fits(reader)) {
+                    loader.add(LetterSignature.low(reader), LetterSignature.high(reader), reader);
                 } else {
-                    word.put(c, 1);
+                    addOddWord(reader.word());
                 }
             }
+        }
+
+        finish(loader, scoreTable);
+    }
+
+
+    /**
+     Create an anagram dictionary from a collection of words, scoring them with the given score table.
+     PRE: The strings in the collection are unique.
 
-            // build the anagram dictionary by puting the anagrams together in a arraylist
-            if (anagrams.containsKey(word)) {
-                temp = anagrams.get(word);
-                temp.add(words);
-                anagrams.put(word, temp);
+     @param wordList  the words of the dictionary
+     @param scoreTable  the letter scores of the words
+     */
+    public AnagramDictionary(Collection<String> wordList, ScoreTable scoreTable) {
+
+        Loader loader = new Loader();
+        oddWords = new HashMap<String, ArrayList<String>>();
+
+        for (String word : wordList) {
+
+            if (LetterSignature.fits(word)) {
+                loader.add(LetterSignature.low(word), LetterSignature.high(word), word);
             } else {
-                temp = new ArrayList<String>();
-                temp.add(words);
-                anagrams.put(word, temp);
+                addOddWord(word);
             }
         }
+
+        finish(loader, scoreTable);
+    }
+
+
+    /**
+     Create an anagram dictionary of several lexicons from their word files, scoring the words
+     with the given score table. Lexicon j is the words of fileNames[j]; a word may be in any
+     number of the files.
+     PRE: The strings in each file are unique.
+
+     @param fileNames  the names of the files of the lexicons, at most MAX_LEXICONS
+     @param scoreTable  the letter scores of the words
+
+     @throws FileNotFoundException  if a file is not found
+     @throws IOException  if a file cannot be read
+     @throws IllegalArgumentException  if there are more than MAX_LEXICONS files
+     */
+    public AnagramDictionary(String[] fileNames, ScoreTable scoreTable) throws IOException {
+
+        if (fileNames.length > MAX_LEXICONS) {
+            throw new IllegalArgumentException("Too many lexicons: " + fileNames.length);
+        }
+
+        Loader loader = new Loader();
+        loader.mergeLexicons();
+        oddWords = new HashMap<String, ArrayList<String>>();
+        oddLexicons = new HashMap<String, Integer>();
+        numLexicons = fileNames.length;
+
+        for (int j = 0; j < fileNames.length; j++) {
+
+            try (MappedWordReader reader = new MappedWordReader(fileNames[j])) {
+
+                while (reader.next()) {
+
+                    if (LetterSignature.fits(reader)) {
+                        loader.add(LetterSignature.low(reader), LetterSignature.high(reader), reader, 1 << j);
+                    } else {
+                        addOddWord(reader.word(), 1 << j);
+                    }
+                }
+            }
+        }
+
+        finish(loader, scoreTable);
+    }
+
+
+    /**
+     Create an anagram dictionary over tables read from a DictionarySnapshot.
+
+     @param slots  the hash table of bucket indexes plus one
+     @param bucketLow  the low long of the signature of every bucket
+     @param bucketHigh  the high long of the signature of every bucket
+     @param bucketStart  the index of the first word of every bucket, and the number of words at the end
+     @param wordOffset  the position of every word in pool, and the size of the pool at the end
+     @param pool  the Latin-1 bytes of all the words
+     @param oddWordList  the words that cannot be represented by a LetterSignature
+     @param scoreTable  the letter scores of the words
+     */
+    AnagramDictionary(IntBuffer slots, LongBuffer bucketLow, LongBuffer bucketHigh, IntBuffer bucketStart,
+                      IntBuffer wordOffset, ByteBuffer pool, ArrayList<String> oddWordList,
+                      ScoreTable scoreTable) {
+
+        this.slots = slots;
+        this.bucketLow = bucketLow;
+        this.bucketHigh = bucketHigh;
+        this.bucketStart = bucketStart;
+        this.wordOffset = wordOffset;
+        this.pool = pool;
+        oddWords = new HashMap<String, ArrayList<String>>();
+
+        for (int i = 0; i < oddWordList.size(); i++) {
+            addOddWord(oddWordList.get(i));
+        }
+
+        scoreBuckets(scoreTable);
+        maskBuckets();
+    }
+
+
+    /**
+     Open the anagram dictionary of a word file through its binary snapshot, scoring its words
+     with the English tile values. See open(String, String, ScoreTable).
+
+     @param fileName  the name of the word file
+     @param snapshotName  the name of the snapshot file of the word file
+
+     @return  the anagram dictionary of the word file
+
+     @throws FileNotFoundException  if the word file is not found
+     @throws IOException  if the word file cannot be read
+     */
+    public static AnagramDictionary open(String fileName, String snapshotName) throws IOException {
+        return open(fileName, snapshotName, new ScoreTable());
+    }
+
+
+    /**
+     Open the anagram dictionary of a word file through its binary snapshot. If the snapshot is
+     missing, corrupt or older than the word file, the dictionary is built from the word file and
+     a new snapshot is written; a snapshot that cannot be written is not an error.
+
+     @param fileName  the name of the word file
+     @param snapshotName  the name of the snapshot file of the word file
+     @param scoreTable  the letter scores of the words
+
+     @return  the anagram dictionary of the word file
+
+     @throws FileNotFoundException  if the word file is not found
+     @throws IOException  if the word file cannot be read
+     */
+    public static AnagramDictionary open(String fileName, String snapshotName, ScoreTable scoreTable)
+            throws IOException {
+
+        AnagramDictionary dictionary = DictionarySnapshot.open(snapshotName, fileName, scoreTable);
+
+        if (dictionary != null) {
+            return dictionary;
+        }
+
+        dictionary = new AnagramDictionary(fileName, scoreTable);
+
+        try {
+            DictionarySnapshot.write(dictionary, snapshotName, fileName);
+        } catch (IOException exception) {
+            // the snapshot only saves time, so keep going without it
+        }
+
+        return dictionary;
+    }
+
+
+    /**
+     Get the score table the words of this dictionary are scored with.
+
+     @return  the score table
+     */
+    public ScoreTable getScoreTable() {
+        return scoreTable;
     }
 
 
@@ -78,25 +299,785 @@ public class AnagramDictionary {
      */
     public ArrayList<String> getAnagramsOf(String s) {
 
-        // find the string s's component, the unique letters and its multiplicity, storing it by TreeMap
-        Map<Character, Integer> temp = new TreeMap<Character, Integer>();
+        ArrayList<String> result = new ArrayList<String>();
+        addAnagramsOf(s, result);
+
+        return result;
+    }
 
-        for (int i = 0; i < s.length(); i++) {
-            char c = s.charAt(i);
 
-            if (temp.containsKey(c)) {
-                temp.put(c, temp.get(c) + 1);
-            } else {
-                temp.put(c, 1);
+    /**
+     Add all anagrams of the given string to the end of a collection. This method is case-sensitive,
+     and it allocates nothing but the anagrams themselves unless the collection needs to grow.
+
+     @param s  string to process
+     @param result  the collection the anagrams of s are added to
+
+     @return the number of anagrams added
+     */
+    public int addAnagramsOf(CharSequence s, Collection<String> result) {
+        return addAnagramsOf(s, ALL_LEXICONS, result);
+    }
+
+
+    /**
+     Add the anagrams of the given string that are in some lexicons to the end of a collection.
+     This method is case-sensitive.
+
+     @param s  string to process
+     @param lexicons  the mask of the lexicons to look in, bit j for lexicon j
+     @param result  the collection the anagrams of s are added to
+
+     @return the number of anagrams added
+     */
+    public int addAnagramsOf(CharSequence s, int lexicons, Collection<String> result) {
+
+        if (!LetterSignature.fits(s)) {
+            ArrayList<String> odd = oddWords.get(sortedLetters(s));
+
+            if (odd == null) {
+                return 0;
+            }
+
+            int added = 0;
+
+            for (int i = 0; i < odd.size(); i++) {
+                if ((oddLexicons(odd.get(i)) & lexicons) != 0) {
+                    result.add(odd.get(i));
+                    added++;
+                }
+            }
+
+            return added;
+        }
+
+        if (!mayBeWord(LetterSignature.mask(s), false, s.length())) {
+            return 0;
+        }
+
+        int bucket = findBucket(LetterSignature.low(s), LetterSignature.high(s));
+
+        if (bucket < 0) {
+            return 0;
+        }
+
+        return addBucket(bucket, lexicons, result);
+    }
+
+
+    /**
+     Returns true iff a word is in this dictionary. This method is case-sensitive.
+
+     @param word  the word to look up
+
+     @return  true iff word is one of the words of the dictionary
+     */
+    public boolean contains(CharSequence word) {
+
+        if (!LetterSignature.fits(word)) {
+            ArrayList<String> odd = oddWords.get(sortedLetters(word));
+
+            return odd != null && odd.contains(word.toString());
+        }
+
+        return indexOf(word) >= 0;
+    }
+
+
+    /**
+     Get the number of lexicons of this dictionary.
+
+     @return  the number of word lists the dictionary was built from; 1 unless it was built from several
+     */
+    public int numLexicons() {
+        return numLexicons;
+    }
+
+
+    /**
+     Returns false if no word of the dictionary can be made of exactly some letters, judging by
+     their letter-presence mask and number only; true means the letters still have to be looked up.
+
+     @param mask  the letter-presence mask of the letters 'a' to 'z' among them
+     @param odd  true iff there are chars other than 'a' to 'z' among them
+     @param length  the number of letters
+
+     @return  false if the letters certainly have no anagram
+     */
+    boolean mayBeWord(int mask, boolean odd, int length) {
+
+        if (odd) {
+            return length <= oddLength && (mask & ~oddMask) == 0;
+        }
+
+        return length < lengthCount.length && lengthCount[length] > 0 && (mask & ~lengthMask[length]) == 0;
+    }
+
+
+    /**
+     Returns false if no word of the dictionary has all of some letters, judging by their
+     letter-presence mask and number only. Then no letters added to them make a word either, so
+     a search can skip all of their supersets.
+
+     @param mask  the letter-presence mask of the letters 'a' to 'z' among them
+     @param odd  true iff there are chars other than 'a' to 'z' among them
+     @param length  the number of letters
+
+     @return  false if the letters are certainly not part of any word
+     */
+    boolean mayBeInWord(int mask, boolean odd, int length) {
+
+        if (length <= oddLength && (mask & ~oddMask) == 0) {
+            return true; // they may be part of an odd word
+        }
+
+        return !odd && length < longerMask.length && (mask & ~longerMask[length]) == 0;
+    }
+
+
+    /**
+     Add the words of a bucket that are in some lexicons to the end of a collection.
+
+     @param bucket  index of the bucket, 0 <= bucket < numBuckets()
+     @param lexicons  the mask of the lexicons
+     @param result  the collection the words are added to
+
+     @return the number of words added
+     */
+    int addBucket(int bucket, int lexicons, Collection<String> result) {
+
+        int start = bucketStart.get(bucket);
+        int end = bucketStart.get(bucket + 1);
+        int added = 0;
+
+        for (int i = start; i < end; i++) {
+            if ((wordLexicons(i) & lexicons) != 0) {
+                result.add(word(i));
+                added++;
             }
         }
 
-        // return anagrams of string s if its component is a key from the anagram dictionary
-        // if its component is not a key, return empty list
-        if (anagrams.containsKey(temp)) {
-            return anagrams.get(temp);
+        return added;
+    }
+
+
+    /**
+     Get the lexicons of the i-th word of the buckets.
+
+     @param i  index of the word, 0 <= i < numWords()
+
+     @return  the mask of the lexicons of the word
+     */
+    int wordLexicons(int i) {
+        return wordLexicons == null ? ALL_LEXICONS : wordLexicons[i];
+    }
+
+
+    /**
+     Get the union of the lexicons of the words of a bucket.
+
+     @param bucket  index of the bucket, 0 <= bucket < numBuckets()
+
+     @return  the mask of the lexicons some word of the bucket is in
+     */
+    int bucketLexicons(int bucket) {
+        return bucketLexicons == null ? ALL_LEXICONS : bucketLexicons[bucket];
+    }
+
+
+    /**
+     Get the lexicons of an odd word of the dictionary.
+     */
+    private int oddLexicons(String word) {
+        return oddLexicons == null ? ALL_LEXICONS : oddLexicons.get(word);
+    }
+
+
+    /**
+     Get the number of signature buckets, i.e., the number of distinct anagram sets
+     made of the letters 'a' to 'z'.
+
+     @return  the number of buckets
+     */
+    int numBuckets() {
+        return bucketLow.limit();
+    }
+
+
+    /**
+     Get the index of the first word of a bucket; the words of the bucket are
+     word(bucketFirstWord(bucket)) .. word(bucketEndWord(bucket) - 1).
+
+     @param bucket  index of the bucket, 0 <= bucket < numBuckets()
+
+     @return  the index of the first word of the bucket
+     */
+    int bucketFirstWord(int bucket) {
+        return bucketStart.get(bucket);
+    }
+
+
+    /**
+     Get the index one past the last word of a bucket.
+
+     @param bucket  index of the bucket, 0 <= bucket < numBuckets()
+
+     @return  the index of the first word of the next bucket
+     */
+    int bucketEndWord(int bucket) {
+        return bucketStart.get(bucket + 1);
+    }
+
+
+    /**
+     Get the score of every word of a bucket.
+
+     @param bucket  index of the bucket, 0 <= bucket < numBuckets()
+
+     @return  the score of the words of the bucket
+     */
+    int bucketScore(int bucket) {
+        return bucketScore[bucket];
+    }
+
+
+    /**
+     Get the low long of the signature of a bucket.
+
+     @param bucket  index of the bucket, 0 <= bucket < numBuckets()
+
+     @return  the packed counts of the letters 'a' to 'p' of the words in the bucket
+     */
+    long signatureLow(int bucket) {
+        return bucketLow.get(bucket);
+    }
+
+
+    /**
+     Get the high long of the signature of a bucket.
+
+     @param bucket  index of the bucket, 0 <= bucket < numBuckets()
+
+     @return  the packed counts of the letters 'q' to 'z' of the words in the bucket
+     */
+    long signatureHigh(int bucket) {
+        return bucketHigh.get(bucket);
+    }
+
+
+    /**
+     Get the number of words in all the buckets.
+
+     @return  the number of words
+     */
+    int numWords() {
+        return bucketStart.get(numBuckets());
+    }
+
+
+    /**
+     Get the i-th word of the buckets, in bucket order.
+
+     @param i  index of the word, 0 <= i < numWords()
+
+     @return  the word
+     */
+    String word(int i) {
+
+        int start = wordOffset.get(i);
+        int len = wordOffset.get(i + 1) - start;
+
+        if (pool.hasArray()) {
+            return new String(pool.array(), pool.arrayOffset() + start, len, StandardCharsets.ISO_8859_1);
+        }
+
+        byte[] bytes = new byte[len];
+
+        for (int j = 0; j < len; j++) {
+            bytes[j] = pool.get(start + j);
+        }
+
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+
+    /**
+     Find a word among the words of the buckets, without allocating.
+
+     @param word  the word to look up
+     PRE: word fits a LetterSignature
+
+     @return  the index of the word, 0 <= index < numWords(), or -1 if it is not in the dictionary
+     */
+    int indexOf(CharSequence word) {
+
+        int bucket = findBucket(LetterSignature.low(word), LetterSignature.high(word));
+
+        if (bucket < 0) {
+            return -1;
+        }
+
+        for (int i = bucketStart.get(bucket); i < bucketStart.get(bucket + 1); i++) {
+            if (wordEquals(i, word)) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+
+    /**
+     Returns true iff the i-th word of the buckets is s. Anagrams have the same length, so only
+     the letters need comparing.
+     */
+    private boolean wordEquals(int i, CharSequence s) {
+
+        int start = wordOffset.get(i);
+
+        for (int j = 0; j < s.length(); j++) {
+            if ((char) (pool.get(start + j) & 0xFF) != s.charAt(j)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+
+    /**
+     Get the words that cannot be represented by a LetterSignature.
+
+     @return  a new list of the odd words
+     */
+    ArrayList<String> oddWordList() {
+
+        ArrayList<String> result = new ArrayList<String>();
+
+        for (ArrayList<String> anagramsOfWord : oddWords.values()) {
+            result.addAll(anagramsOfWord);
+        }
+
+        return result;
+    }
+
+
+    // independent views of the tables, for DictionarySnapshot
+    IntBuffer slots() { return slots.duplicate(); }
+    LongBuffer bucketLow() { return bucketLow.duplicate(); }
+    LongBuffer bucketHigh() { return bucketHigh.duplicate(); }
+    IntBuffer bucketStart() { return bucketStart.duplicate(); }
+    IntBuffer wordOffset() { return wordOffset.duplicate(); }
+    ByteBuffer pool() { return pool.duplicate(); }
+
+
+    /**
+     Find the bucket with the given signature.
+
+     @param low  the low long of the signature
+     @param high  the high long of the signature
+
+     @return  the index of the bucket, or -1 if no word has that signature
+     */
+    int findBucket(long low, long high) {
+
+        int mask = slots.limit() - 1;
+
+        for (int h = LetterSignature.hash(low, high) & mask; slots.get(h) != 0; h = (h + 1) & mask) {
+            int bucket = slots.get(h) - 1;
+
+            if (bucketLow.get(bucket) == low && bucketHigh.get(bucket) == high) {
+                return bucket;
+            }
+        }
+
+        return -1;
+    }
+
+
+    /**
+     Take the tables of a loader once all the words have been added to it.
+
+     @param loader  the loader of the words
+     @param table  the letter scores
+     */
+    private void finish(Loader loader, ScoreTable table) {
+
+        loader.finish();
+
+        slots = IntBuffer.wrap(loader.slots);
+        bucketLow = LongBuffer.wrap(loader.bucketLow);
+        bucketHigh = LongBuffer.wrap(loader.bucketHigh);
+        bucketStart = IntBuffer.wrap(loader.bucketStart);
+        wordOffset = IntBuffer.wrap(loader.wordOffset);
+        pool = ByteBuffer.wrap(loader.pool);
+        wordLexicons = loader.wordLexicons;
+
+        if (wordLexicons != null) {
+            bucketLexicons = new int[numBuckets()];
+
+            for (int b = 0; b < numBuckets(); b++) {
+                for (int i = bucketFirstWord(b); i < bucketEndWord(b); i++) {
+                    bucketLexicons[b] |= wordLexicons[i];
+                }
+            }
+        }
+        scoreBuckets(table);
+        maskBuckets();
+    }
+
+
+    /**
+     Compute the score of every bucket from its signature.
+
+     @param table  the letter scores
+     */
+    private void scoreBuckets(ScoreTable table) {
+
+        scoreTable = table;
+        bucketScore = new int[numBuckets()];
+
+        for (int b = 0; b < bucketScore.length; b++) {
+            bucketScore[b] = table.getScore(bucketLow.get(b), bucketHigh.get(b));
+        }
+    }
+
+
+    /**
+     Compute the letter-presence masks and the length histogram of the buckets and the odd words.
+     */
+    private void maskBuckets() {
+
+        int longest = 0;
+
+        for (int b = 0; b < numBuckets(); b++) {
+            longest = Math.max(longest, LetterSignature.length(bucketLow.get(b), bucketHigh.get(b)));
+        }
+
+        lengthCount = new int[longest + 1];
+        lengthMask = new int[longest + 1];
+        longerMask = new int[longest + 1];
+
+        for (int b = 0; b < numBuckets(); b++) {
+
+            int length = LetterSignature.length(bucketLow.get(b), bucketHigh.get(b));
+
+            lengthCount[length] += bucketEndWord(b) - bucketFirstWord(b);
+            lengthMask[length] |= LetterSignature.mask(bucketLow.get(b), bucketHigh.get(b));
+        }
+
+        for (int n = longest; n >= 0; n--) {
+            longerMask[n] = lengthMask[n] | (n < longest ? longerMask[n + 1] : 0);
+        }
+
+        oddMask = 0;
+        oddLength = -1;
+
+        for (ArrayList<String> anagramsOfWord : oddWords.values()) {
+            oddMask |= LetterSignature.mask(anagramsOfWord.get(0));
+            oddLength = Math.max(oddLength, anagramsOfWord.get(0).length());
+        }
+    }
+
+
+    /**
+     Add a word that cannot be represented by a LetterSignature.
+
+     @param word  the word to add
+     */
+    private void addOddWord(String word) {
+
+        String key = sortedLetters(word);
+        ArrayList<String> anagramsOfWord = oddWords.get(key);
+
+        if (anagramsOfWord == null) {
+            anagramsOfWord = new ArrayList<String>();
+            oddWords.put(key, anagramsOfWord);
+        }
+
+        anagramsOfWord.add(word);
+    }
+
+
+    /**
+     Add a word that cannot be represented by a LetterSignature to a lexicon; a word already in
+     another lexicon is only added to this one.
+
+     @param word  the word to add
+     @param lexicon  the mask of the lexicon
+     */
+    private void addOddWord(String word, int lexicon) {
+
+        Integer lexicons = oddLexicons.get(word);
+
+        if (lexicons == null) {
+            addOddWord(word);
+            oddLexicons.put(word, lexicon);
         } else {
-            return new ArrayList<String>();
+            oddLexicons.put(word, lexicons | lexicon);
+        }
+    }
+
+
+    /**
+     Get the chars of s in sorted order; two strings are anagrams iff they have the same sorted letters.
+
+     @param s  string to process
+
+     @return  the sorted chars of s
+     */
+    private static String sortedLetters(CharSequence s) {
+
+        char[] letters = new char[s.length()];
+
+        for (int i = 0; i < letters.length; i++) {
+            letters[i] = s.charAt(i);
+        }
+
+        Arrays.sort(letters);
+
+        return new String(letters);
+    }
+
+
+    /**
+     Builds the tables of an anagram dictionary in growable arrays while the words are loaded.
+     */
+    private static class Loader {
+
+        private static final int INITIAL_CAPACITY = 1024;
+        // starting size of the growable arrays
+
+        int[] slots = new int[INITIAL_CAPACITY * 2];
+        long[] bucketLow = new long[INITIAL_CAPACITY];
+        long[] bucketHigh = new long[INITIAL_CAPACITY];
+        int[] bucketStart;
+        int[] wordOffset;
+        byte[] pool;
+        int[] wordLexicons;
+        int numBuckets = 0;
+
+        // the letters of the words in the order they are added, word i being
+        // loadedBytes[loadedOffset[i], loadedOffset[i + 1]), and the bucket of each of them
+        private byte[] loadedBytes = new byte[INITIAL_CAPACITY * 8];
+        private int[] loadedOffset = new int[INITIAL_CAPACITY + 1];
+        private int[] loadedBucket = new int[INITIAL_CAPACITY];
+        private int numLoaded = 0;
+
+        // when several lexicons are merged: the lexicons of every loaded word, and the loaded words
+        // of every bucket as a list from bucketLast[b] through previousInBucket, to find a word
+        // that is loaded again from another lexicon; null otherwise
+        private int[] loadedLexicons;
+        private int[] previousInBucket;
+        private int[] bucketLast;
+
+
+        /**
+         Merge words that are loaded more than once into one word with the union of their lexicons.
+         */
+        void mergeLexicons() {
+            loadedLexicons = new int[loadedBucket.length];
+            previousInBucket = new int[loadedBucket.length];
+            bucketLast = new int[bucketLow.length];
+            Arrays.fill(bucketLast, -1);
+        }
+
+
+        /**
+         Add a word of a lexicon with the given signature, or add the lexicon to the word if it is
+         already loaded.
+         PRE: mergeLexicons() has been called, and word fits a LetterSignature
+         */
+        void add(long low, long high, CharSequence word, int lexicon) {
+
+            int bucket = findOrAddBucket(low, high);
+
+            for (int i = bucketLast[bucket]; i >= 0; i = previousInBucket[i]) {
+                if (sameWord(i, word)) {
+                    loadedLexicons[i] |= lexicon;
+                    return;
+                }
+            }
+
+            add(bucket, word);
+
+            loadedLexicons[numLoaded - 1] = lexicon;
+            previousInBucket[numLoaded - 1] = bucketLast[bucket];
+            bucketLast[bucket] = numLoaded - 1;
+        }
+
+
+        /**
+         Add a word with the given signature.
+         PRE: word fits a LetterSignature, so its chars are all single bytes in Latin-1
+         */
+        void add(long low, long high, CharSequence word) {
+            add(findOrAddBucket(low, high), word);
+        }
+
+
+        private void add(int bucket, CharSequence word) {
+
+            if (numLoaded == loadedBucket.length) {
+                loadedOffset = Arrays.copyOf(loadedOffset, numLoaded * 2 + 1);
+                loadedBucket = Arrays.copyOf(loadedBucket, numLoaded * 2);
+
+                if (loadedLexicons != null) {
+                    loadedLexicons = Arrays.copyOf(loadedLexicons, numLoaded * 2);
+                    previousInBucket = Arrays.copyOf(previousInBucket, numLoaded * 2);
+                }
+            }
+
+            int start = loadedOffset[numLoaded];
+
+            while (start + word.length() > loadedBytes.length) {
+                loadedBytes = Arrays.copyOf(loadedBytes, loadedBytes.length * 2);
+            }
+
+            for (int i = 0; i < word.length(); i++) {
+                loadedBytes[start + i] = (byte) word.charAt(i);
+            }
+
+            loadedBucket[numLoaded] = bucket;
+            loadedOffset[numLoaded + 1] = start + word.length();
+            numLoaded++;
+        }
+
+
+        /**
+         Returns true iff the loaded word i is word. Only called for words of the same bucket, which
+         have the same length.
+         */
+        private boolean sameWord(int i, CharSequence word) {
+
+            for (int j = 0; j < word.length(); j++) {
+                if (loadedBytes[loadedOffset[i] + j] != (byte) word.charAt(j)) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+
+        /**
+         Lay out the loaded words contiguously by bucket (a counting sort), and trim the bucket arrays.
+         */
+        void finish() {
+
+            bucketLow = Arrays.copyOf(bucketLow, numBuckets);
+            bucketHigh = Arrays.copyOf(bucketHigh, numBuckets);
+            bucketStart = new int[numBuckets + 1];
+
+            for (int i = 0; i < numLoaded; i++) {
+                bucketStart[loadedBucket[i] + 1]++;
+            }
+
+            for (int b = 0; b < numBuckets; b++) {
+                bucketStart[b + 1] += bucketStart[b];
+            }
+
+            // the position of every loaded word in bucket order; the words keep their file order
+            // inside a bucket
+            int[] next = Arrays.copyOf(bucketStart, numBuckets);
+            int[] position = new int[numLoaded];
+
+            for (int i = 0; i < numLoaded; i++) {
+                position[i] = next[loadedBucket[i]]++;
+            }
+
+            // the offsets of the words from their lengths, then their bytes
+            wordOffset = new int[numLoaded + 1];
+
+            for (int i = 0; i < numLoaded; i++) {
+                wordOffset[position[i] + 1] = loadedOffset[i + 1] - loadedOffset[i];
+            }
+
+            for (int i = 0; i < numLoaded; i++) {
+                wordOffset[i + 1] += wordOffset[i];
+            }
+
+            pool = new byte[wordOffset[numLoaded]];
+
+            for (int i = 0; i < numLoaded; i++) {
+                System.arraycopy(loadedBytes, loadedOffset[i], pool, wordOffset[position[i]],
+                        loadedOffset[i + 1] - loadedOffset[i]);
+            }
+
+            if (loadedLexicons != null) {
+                wordLexicons = new int[numLoaded];
+
+                for (int i = 0; i < numLoaded; i++) {
+                    wordLexicons[position[i]] = loadedLexicons[i];
+                }
+            }
+
+            loadedBytes = null;
+            loadedOffset = null;
+            loadedBucket = null;
+            loadedLexicons = null;
+            previousInBucket = null;
+            bucketLast = null;
+        }
+
+
+        /**
+         Find the bucket with the given signature, creating it if it does not exist yet.
+         */
+        private int findOrAddBucket(long low, long high) {
+
+            int mask = slots.length - 1;
+            int h = LetterSignature.hash(low, high) & mask;
+
+            for (; slots[h] != 0; h = (h + 1) & mask) {
+                int bucket = slots[h] - 1;
+
+                if (bucketLow[bucket] == low && bucketHigh[bucket] == high) {
+                    return bucket;
+                }
+            }
+
+            if (numBuckets == bucketLow.length) {
+                bucketLow = Arrays.copyOf(bucketLow, numBuckets * 2);
+                bucketHigh = Arrays.copyOf(bucketHigh, numBuckets * 2);
+
+                if (bucketLast != null) {
+                    bucketLast = Arrays.copyOf(bucketLast, numBuckets * 2);
+                    Arrays.fill(bucketLast, numBuckets, numBuckets * 2, -1);
+                }
+            }
+
+            int bucket = numBuckets++;
+            bucketLow[bucket] = low;
+            bucketHigh[bucket] = high;
+            slots[h] = bucket + 1;
+
+            // keep the load factor of the hash table at most one half
+            if (numBuckets * 2 > slots.length) {
+                rehash(slots.length * 2);
+            }
+
+            return bucket;
+        }
+
+
+        /**
+         Rebuild the hash table with a new number of slots, a power of two.
+         */
+        private void rehash(int capacity) {
+
+            slots = new int[capacity];
+            int mask = capacity - 1;
+
+            for (int bucket = 0; bucket < numBuckets; bucket++) {
+                int h = LetterSignature.hash(bucketLow[bucket], bucketHigh[bucket]) & mask;
+
+                while (slots[h] != 0) {
+                    h = (h + 1) & mask;
+                }
+
+                slots[h] = bucket + 1;
+            }
         }
     }
 }
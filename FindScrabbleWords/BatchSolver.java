@@ -0,0 +1,245 @@
+/**
+ Solves a stream of racks, one rack per line, on a pool of worker threads sharing one RackSolver
+ (or the current version of a LiveDictionary, got afresh for every rack).
+ Results are written in the order the racks were read: the reader keeps at most window racks in
+ flight in a ring of futures, and before reading rack i it writes the result of rack i - window,
+ waiting for it if needed. The reader formats the results into the buffer of a ResultWriter, so
+ the output is written in large blocks. The time to solve every rack goes to a Histogram of fixed
+ size, so memory stays bounded however long the stream is, and the workers stay busy as long as
+ window is well above the number of threads.
+ When the stream ends, the number of racks per second and percentiles of the time to solve a rack
+ (to within about 3%) are printed to System.err, so they do not mix with the reports.
+ */
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+public class BatchSolver {
+
+    private Supplier<RackSolver> solvers;
+    private int threads;
+    private int window;
+    private int limit;
+    private WordFilter filter;
+
+    // time to solve every rack in nanoseconds. A worker stores the time of rack i in
+    // inFlightLatency[i % window]; the reader records it in latencies once the report of rack i
+    // is ready (Future.get makes the worker's write visible), so no lock is needed.
+    private long[] inFlightLatency;
+    private String[] inFlightRack;
+    // the rack of rack i is inFlightRack[i % window], written by the reader only
+    private Histogram latencies = new Histogram();
+
+
+    /**
+     Creates a batch solver.
+
+     @param solver  the rack solver shared by all the workers
+     @param threads  number of worker threads, at least 1
+     @param window  largest number of racks in flight (the size of the reorder buffer), at least 1
+     @param limit  the number of best words to list per rack, or 0 to list them all
+     */
+    public BatchSolver(RackSolver solver, int threads, int window, int limit) {
+        this(() -> solver, threads, window, limit);
+    }
+
+
+    /**
+     Creates a batch solver that gets the solver of every rack from a supplier, e.g. a LiveDictionary.
+
+     @param solvers  the supplier of the rack solver of every rack
+     @param threads  number of worker threads, at least 1
+     @param window  largest number of racks in flight (the size of the reorder buffer), at least 1
+     @param limit  the number of best words to list per rack, or 0 to list them all
+     */
+    public BatchSolver(Supplier<RackSolver> solvers, int threads, int window, int limit) {
+        this(solvers, threads, window, limit, WordFilter.NONE);
+    }
+
+
+    /**
+     Creates a batch solver that only finds the words passing a filter.
+
+     @param solvers  the supplier of the rack solver of every rack
+     @param threads  number of worker threads, at least 1
+     @param window  largest number of racks in flight (the size of the reorder buffer), at least 1
+     @param limit  the number of best words to list per rack, or 0 to list them all
+     @param filter  the words to find
+     */
+    public BatchSolver(Supplier<RackSolver> solvers, int threads, int window, int limit, WordFilter filter) {
+        this.solvers = solvers;
+        this.threads = threads;
+        this.window = window;
+        this.limit = limit;
+        this.filter = filter;
+    }
+
+
+    /**
+     Solve every rack read from in and write the reports to out in input order. Blank lines are skipped.
+
+     @param in  the racks, one per line
+     @param out  where the reports are written
+
+     @throws IOException  if the racks cannot be read
+     */
+    public void run(BufferedReader in, PrintStream out) throws IOException {
+        run(in, new ResultWriter(out, ResultWriter.Format.PLAIN));
+    }
+
+
+    /**
+     Solve every rack read from in and write the results to out in input order, then flush out.
+     Blank lines are skipped.
+
+     @param in  the racks, one per line
+     @param out  where the results are written
+
+     @throws IOException  if the racks cannot be read or the results cannot be written
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void run(BufferedReader in, ResultWriter out) throws IOException {
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        Future<ResultCache.Result>[] inFlight = new Future[window];
+        inFlightRack = new String[window];
+        inFlightLatency = new long[window];
+        long start = System.nanoTime();
+        String line;
+        int read = 0;
+        int written = 0;
+
+        try {
+            while ((line = in.readLine()) != null) {
+
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+
+                String filterTarget = RackSolver.filter(line.trim());
+
+                // make room in the ring by writing the oldest report
+                if (read - written == window) {
+                    writeReport(inFlight, written++, out);
+                }
+
+                int index = read++;
+                inFlightRack[index % window] = filterTarget;
+                inFlight[index % window] = pool.submit(() -> solve(index, filterTarget));
+            }
+
+            while (written < read) {
+                writeReport(inFlight, written++, out);
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        out.flush();
+        printStats(read, System.nanoTime() - start);
+    }
+
+
+    /**
+     Wait for the result of a rack, write it and record how long the rack took.
+
+     @param inFlight  the ring of future results
+     @param index  position of the rack in the input
+     @param out  where the result is written
+     */
+    private void writeReport(Future<ResultCache.Result>[] inFlight, int index, ResultWriter out)
+            throws IOException {
+
+        ResultCache.Result result = await(inFlight[index % window]);
+        QueryMetrics metrics = solvers.get().getMetrics();
+        long start = metrics == null ? 0 : System.nanoTime();
+
+        out.write(inFlightRack[index % window], result, limit);
+        inFlight[index % window] = null;
+
+        if (metrics != null) {
+            metrics.printed(System.nanoTime() - start);
+        }
+
+        latencies.record(inFlightLatency[index % window]);
+    }
+
+
+    /**
+     Solve one rack and record how long it took.
+
+     @param index  position of the rack in the input
+     @param filterTarget  the rack, letters and blanks only
+
+     @return  the number of words of the rack and the words listed
+     */
+    private ResultCache.Result solve(int index, String filterTarget) {
+
+        long start = System.nanoTime();
+        ResultCache.Result result = solvers.get().rank(filterTarget, limit, filter);
+        inFlightLatency[index % window] = System.nanoTime() - start;
+
+        return result;
+    }
+
+
+    /**
+     Wait for a result to be ready.
+
+     @param result  the future result
+
+     @return  the result
+     */
+    private static ResultCache.Result await(Future<ResultCache.Result> result) {
+
+        try {
+            return result.get();
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a rack", exception);
+        } catch (ExecutionException exception) {
+            throw new IllegalStateException("Cannot solve a rack", exception.getCause());
+        }
+    }
+
+
+    /**
+     Print the throughput and latency percentiles of the run to System.err.
+
+     @param racks  number of racks solved
+     @param elapsedNanos  wall time of the whole run
+     */
+    private void printStats(int racks, long elapsedNanos) {
+
+        if (racks == 0) {
+            System.err.println("Solved 0 racks");
+            return;
+        }
+
+        System.err.printf("Solved %d racks in %.3f s on %d threads: %.1f racks/s%n",
+                racks, elapsedNanos / 1e9, threads, racks / (elapsedNanos / 1e9));
+        System.err.printf("Latency (ms): p50 %.3f  p90 %.3f  p99 %.3f  p99.9 %.3f  max %.3f%n",
+                latencies.percentile(50) / 1e6, latencies.percentile(90) / 1e6, latencies.percentile(99) / 1e6,
+                latencies.percentile(99.9) / 1e6, latencies.max() / 1e6);
+    }
+
+
+    /**
+     Get a percentile of sorted values by the nearest-rank method.
+
+     @param sorted  the values in ascending order, at least one
+     @param p  the percentile, 0 < p <= 100
+
+     @return  the smallest value that at least p percent of the values are less than or equal to
+     */
+    static long percentile(long[] sorted, double p) {
+
+        int rank = (int) Math.ceil(p / 100 * sorted.length);
+
+        return sorted[Math.max(rank, 1) - 1];
+    }
+}
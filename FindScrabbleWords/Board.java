@@ -0,0 +1,187 @@
+/**
+ A 15x15 Scrabble board with the standard premium squares.
+ A square is either empty or holds a tile: a lower case letter for a letter tile, or an upper case
+ letter for a blank tile standing for that letter (blank tiles score zero).
+ Rows and columns are numbered from 0 here; moves are printed the usual way, rows 1 to 15 and
+ columns A to O (see Move).
+ */
+import java.io.File;
+import java.io.IOException;
+import java.util.Scanner;
+
+public class Board {
+
+    public static final int SIZE = 15;
+
+    public static final char EMPTY = 0;
+    // the content of a square with no tile
+
+    private static final String[] LAYOUT = {
+            "T..d...T...d..T",
+            ".D...t...t...D.",
+            "..D...d.d...D..",
+            "d..D...d...D..d",
+            "....D.....D....",
+            ".t...t...t...t.",
+            "..d...d.d...d..",
+            "T..d...D...d..T",
+            "..d...d.d...d..",
+            ".t...t...t...t.",
+            "....D.....D....",
+            "d..D...d...D..d",
+            "..D...d.d...D..",
+            ".D...t...t...D.",
+            "T..d...T...d..T" };
+    // 'T' triple word, 'D' double word, 't' triple letter, 'd' double letter, '.' plain square;
+    // the center square is a double word square
+
+    private char[][] tiles;
+    private int numTiles;
+
+
+    /**
+     Creates an empty board.
+     */
+    public Board() {
+        tiles = new char[SIZE][SIZE];
+        numTiles = 0;
+    }
+
+
+    /**
+     Creates a board from a file of SIZE lines of SIZE squares each: '.' (or any other char that
+     is not a letter) for an empty square, a lower case letter for a letter tile and an upper case
+     letter for a blank tile. Lines starting with '#' are skipped.
+
+     @param fileName  the name of the file to read from
+
+     @throws FileNotFoundException  if the file is not found
+     @throws IOException  if the file does not have SIZE lines of SIZE squares
+     */
+    public Board(String fileName) throws IOException {
+
+        this();
+
+        Scanner sc = new Scanner(new File(fileName), "UTF-8");
+        int row = 0;
+
+        try {
+            while (sc.hasNextLine()) {
+
+                String line = sc.nextLine().trim();
+
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+
+                if (row == SIZE || line.length() != SIZE) {
+                    throw new IOException(fileName + ": expected " + SIZE + " lines of " + SIZE + " squares");
+                }
+
+                for (int col = 0; col < SIZE; col++) {
+                    char c = line.charAt(col);
+
+                    if (Character.toLowerCase(c) >= 'a' && Character.toLowerCase(c) <= 'z') {
+                        tiles[row][col] = c;
+                        numTiles++;
+                    }
+                }
+
+                row++;
+            }
+        } finally {
+            sc.close();
+        }
+
+        if (row != SIZE) {
+            throw new IOException(fileName + ": expected " + SIZE + " lines of " + SIZE + " squares");
+        }
+    }
+
+
+    /**
+     Get the tile on a square.
+
+     @param row  the row, 0 to SIZE - 1
+     @param col  the column, 0 to SIZE - 1
+
+     @return  the tile, or EMPTY
+     */
+    public char get(int row, int col) {
+        return tiles[row][col];
+    }
+
+
+    /**
+     Returns true iff no tile has been placed on the board.
+     */
+    public boolean isEmpty() {
+        return numTiles == 0;
+    }
+
+
+    /**
+     Get the letter multiplier of a square: 3 for a triple letter square, 2 for a double letter
+     square, 1 otherwise.
+     */
+    public int letterMultiplier(int row, int col) {
+
+        char premium = LAYOUT[row].charAt(col);
+
+        return premium == 't' ? 3 : premium == 'd' ? 2 : 1;
+    }
+
+
+    /**
+     Get the word multiplier of a square: 3 for a triple word square, 2 for a double word
+     square, 1 otherwise.
+     */
+    public int wordMultiplier(int row, int col) {
+
+        char premium = LAYOUT[row].charAt(col);
+
+        return premium == 'T' ? 3 : premium == 'D' ? 2 : 1;
+    }
+
+
+    /**
+     Play a move: put its tiles on the empty squares it covers.
+
+     @param move  a move generated for this board
+     */
+    public void place(Move move) {
+
+        String word = move.getWord();
+
+        for (int i = 0; i < word.length(); i++) {
+
+            int row = move.isAcross() ? move.getRow() : move.getRow() + i;
+            int col = move.isAcross() ? move.getColumn() + i : move.getColumn();
+
+            if (tiles[row][col] == EMPTY) {
+                tiles[row][col] = word.charAt(i);
+                numTiles++;
+            }
+        }
+    }
+
+
+    /**
+     Returns the board as SIZE lines in the format of the board file, '.' for an empty square.
+     */
+    @Override
+    public String toString() {
+
+        StringBuilder out = new StringBuilder();
+
+        for (int row = 0; row < SIZE; row++) {
+            for (int col = 0; col < SIZE; col++) {
+                out.append(tiles[row][col] == EMPTY ? '.' : tiles[row][col]);
+            }
+
+            out.append('\n');
+        }
+
+        return out.toString();
+    }
+}
@@ -0,0 +1,252 @@
+/**
+ A precompiled binary snapshot of an AnagramDictionary, so that a dictionary is built from its word
+ file once and later opened through a read-only memory-mapped view with no rebuild. Processes that
+ open the same snapshot share its mapped pages.
+
+ File layout (big-endian):
+   header, HEADER_SIZE bytes:
+     int magic, int version, long size of the word file, long last-modified time of the word file,
+     long CRC32 of the body, int number of slots, int number of buckets, int number of words,
+     int size of the string pool, int size of the odd word section
+   body:
+     long[numBuckets] signature low longs, long[numBuckets] signature high longs,
+     int[numSlots] hash table, int[numBuckets + 1] bucket starts, int[numWords + 1] word offsets,
+     byte[poolSize] Latin-1 string pool,
+     odd word section: int count, then for every odd word its UTF-8 length and bytes
+
+ A snapshot is stale if the word file has changed size or modification time since it was written.
+ */
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.zip.CRC32;
+
+public class DictionarySnapshot {
+
+    private static final int MAGIC = 0x414E4147; // "ANAG"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 64;
+
+    // positions of the header fields
+    private static final int SOURCE_SIZE_POS = 8;
+    private static final int SOURCE_MODIFIED_POS = 16;
+    private static final int CHECKSUM_POS = 24;
+    private static final int NUM_SLOTS_POS = 32;
+    private static final int NUM_BUCKETS_POS = 36;
+    private static final int NUM_WORDS_POS = 40;
+    private static final int POOL_SIZE_POS = 44;
+    private static final int ODD_SIZE_POS = 48;
+
+
+    /**
+     Write the snapshot of a dictionary. The snapshot is written to a temporary file first and then
+     renamed, so a process opening it never sees a partly written snapshot.
+
+     @param dictionary  the dictionary to save
+     @param snapshotName  the name of the snapshot file
+     @param sourceName  the name of the word file the dictionary was built from
+
+     @throws IOException  if the snapshot cannot be written
+     */
+    public static void write(AnagramDictionary dictionary, String snapshotName, String sourceName)
+            throws IOException {
+
+        if (dictionary.numLexicons() > 1) {
+            throw new IOException("A snapshot holds the words of one file: " + sourceName);
+        }
+
+        File source = new File(sourceName);
+        int numSlots = dictionary.slots().limit();
+        int numBuckets = dictionary.numBuckets();
+        int numWords = dictionary.numWords();
+
+        // the words are already in a pool; encode the odd words into their section
+        int poolSize = dictionary.pool().limit();
+
+        ArrayList<String> oddWordList = dictionary.oddWordList();
+        byte[][] oddEncoded = new byte[oddWordList.size()][];
+        int oddSize = 4;
+
+        for (int i = 0; i < oddEncoded.length; i++) {
+            oddEncoded[i] = oddWordList.get(i).getBytes(StandardCharsets.UTF_8);
+            oddSize += 4 + oddEncoded[i].length;
+        }
+
+        long bodySize = 16L * numBuckets + 4L * numSlots + 4L * (numBuckets + 1) + 4L * (numWords + 1)
+                + poolSize + oddSize;
+
+        if (bodySize > Integer.MAX_VALUE - HEADER_SIZE) {
+            throw new IOException("Dictionary too large for a snapshot: " + sourceName);
+        }
+
+        ByteBuffer body = ByteBuffer.allocate((int) bodySize);
+        body.asLongBuffer().put(dictionary.bucketLow());
+        body.position(8 * numBuckets);
+        body.asLongBuffer().put(dictionary.bucketHigh());
+        body.position(16 * numBuckets);
+        body.asIntBuffer().put(dictionary.slots());
+        body.position(body.position() + 4 * numSlots);
+        body.asIntBuffer().put(dictionary.bucketStart());
+        body.position(body.position() + 4 * (numBuckets + 1));
+
+        body.asIntBuffer().put(dictionary.wordOffset());
+        body.position(body.position() + 4 * (numWords + 1));
+        body.put(dictionary.pool());
+
+        body.putInt(oddEncoded.length);
+
+        for (int i = 0; i < oddEncoded.length; i++) {
+            body.putInt(oddEncoded[i].length);
+            body.put(oddEncoded[i]);
+        }
+
+        body.flip();
+        CRC32 crc = new CRC32();
+        crc.update(body.duplicate());
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC);
+        header.putInt(VERSION);
+        header.putLong(source.length());
+        header.putLong(source.lastModified());
+        header.putLong(crc.getValue());
+        header.putInt(numSlots);
+        header.putInt(numBuckets);
+        header.putInt(numWords);
+        header.putInt(poolSize);
+        header.putInt(oddSize);
+        header.position(0);
+
+        Path target = new File(snapshotName).getAbsoluteFile().toPath();
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            while (header.hasRemaining()) {
+                out.write(header);
+            }
+            while (body.hasRemaining()) {
+                out.write(body);
+            }
+        } catch (IOException exception) {
+            Files.deleteIfExists(temp);
+            throw exception;
+        }
+
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+
+    /**
+     Open a snapshot as a dictionary whose tables are views of the mapped file.
+
+     @param snapshotName  the name of the snapshot file
+     @param sourceName  the name of the word file the snapshot must be up to date with
+     @param scoreTable  the letter scores of the words
+
+     @return  the dictionary, or null if the snapshot is missing, unreadable, corrupt, of another
+     version or stale
+     */
+    public static AnagramDictionary open(String snapshotName, String sourceName, ScoreTable scoreTable) {
+
+        File snapshot = new File(snapshotName);
+        File source = new File(sourceName);
+
+        if (!snapshot.isFile() || !source.isFile()) {
+            return null;
+        }
+
+        MappedByteBuffer mapped;
+
+        try (RandomAccessFile file = new RandomAccessFile(snapshot, "r")) {
+            if (file.length() < HEADER_SIZE || file.length() > Integer.MAX_VALUE) {
+                return null;
+            }
+            mapped = file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, file.length());
+        } catch (IOException exception) {
+            return null;
+        }
+
+        if (mapped.getInt(0) != MAGIC || mapped.getInt(4) != VERSION
+                || mapped.getLong(SOURCE_SIZE_POS) != source.length()
+                || mapped.getLong(SOURCE_MODIFIED_POS) != source.lastModified()) {
+            return null;
+        }
+
+        int numSlots = mapped.getInt(NUM_SLOTS_POS);
+        int numBuckets = mapped.getInt(NUM_BUCKETS_POS);
+        int numWords = mapped.getInt(NUM_WORDS_POS);
+        int poolSize = mapped.getInt(POOL_SIZE_POS);
+        int oddSize = mapped.getInt(ODD_SIZE_POS);
+        long bodySize = 16L * numBuckets + 4L * numSlots + 4L * (numBuckets + 1) + 4L * (numWords + 1)
+                + poolSize + oddSize;
+
+        if (numSlots <= 0 || Integer.bitCount(numSlots) != 1 || numBuckets < 0 || numWords < 0
+                || poolSize < 0 || oddSize < 4 || HEADER_SIZE + bodySize != mapped.limit()) {
+            return null;
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(section(mapped, HEADER_SIZE, (int) bodySize));
+
+        if (crc.getValue() != mapped.getLong(CHECKSUM_POS)) {
+            return null;
+        }
+
+        int pos = HEADER_SIZE;
+        LongBuffer bucketLow = section(mapped, pos, 8 * numBuckets).asLongBuffer();
+        pos += 8 * numBuckets;
+        LongBuffer bucketHigh = section(mapped, pos, 8 * numBuckets).asLongBuffer();
+        pos += 8 * numBuckets;
+        IntBuffer slots = section(mapped, pos, 4 * numSlots).asIntBuffer();
+        pos += 4 * numSlots;
+        IntBuffer bucketStart = section(mapped, pos, 4 * (numBuckets + 1)).asIntBuffer();
+        pos += 4 * (numBuckets + 1);
+        IntBuffer wordOffset = section(mapped, pos, 4 * (numWords + 1)).asIntBuffer();
+        pos += 4 * (numWords + 1);
+        ByteBuffer pool = section(mapped, pos, poolSize);
+        pos += poolSize;
+
+        ByteBuffer odd = section(mapped, pos, oddSize);
+        int numOdd = odd.getInt();
+        ArrayList<String> oddWordList = new ArrayList<String>();
+
+        for (int i = 0; i < numOdd; i++) {
+            byte[] bytes = new byte[odd.getInt()];
+            odd.get(bytes);
+            oddWordList.add(new String(bytes, StandardCharsets.UTF_8));
+        }
+
+        return new AnagramDictionary(slots, bucketLow, bucketHigh, bucketStart, wordOffset, pool, oddWordList,
+                scoreTable);
+    }
+
+
+    /**
+     Get an independent view of part of a buffer.
+
+     @param buffer  the whole buffer
+     @param start  position of the first byte of the part
+     @param size  number of bytes in the part
+
+     @return  a buffer whose position 0 is buffer[start] and whose limit is size
+     */
+    private static ByteBuffer section(ByteBuffer buffer, int start, int size) {
+
+        ByteBuffer part = buffer.duplicate();
+        part.limit(start + size);
+        part.position(start);
+
+        return part.slice();
+    }
+}
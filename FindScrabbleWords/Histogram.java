@@ -0,0 +1,192 @@
+/**
+ A histogram of non-negative long values (times in nanoseconds, counts), in the style of
+ HdrHistogram: the values below 64 have a bucket each, and every power of two above that is cut
+ into 32 buckets of equal width, so a value is kept to within about 3% with under 2000 buckets
+ for the whole range of long. Recording a value is a few bit operations and an atomic increment,
+ with no allocation and no lock, so many threads can record into one histogram at once.
+ A copy taken with snapshot() can be subtracted from a later one to get the values recorded
+ in between.
+ */
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+public class Histogram {
+
+    private static final int LINEAR = 64;
+    // the values below LINEAR have a bucket each
+
+    private static final int SUB_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    // the buckets of every power of two from LINEAR up
+
+    private static final int NUM_BUCKETS = LINEAR + (Long.SIZE - 1 - SUB_BITS - 1) * SUB_BUCKETS;
+
+    private AtomicLongArray counts = new AtomicLongArray(NUM_BUCKETS);
+    private LongAdder count = new LongAdder();
+    private LongAdder sum = new LongAdder();
+
+
+    /**
+     Record a value.
+
+     @param value  the value, at least 0; a negative value is recorded as 0
+     */
+    public void record(long value) {
+
+        value = Math.max(0, value);
+
+        counts.getAndIncrement(bucketOf(value));
+        count.increment();
+        sum.add(value);
+    }
+
+
+    /**
+     Get the number of values recorded.
+
+     @return  the number of values
+     */
+    public long count() {
+        return count.sum();
+    }
+
+
+    /**
+     Get the mean of the values recorded.
+
+     @return  the exact mean, or 0 if there are no values
+     */
+    public double mean() {
+
+        long n = count.sum();
+
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+
+    /**
+     Get a percentile of the values recorded by the nearest-rank method, as the highest value of
+     its bucket.
+
+     @param p  the percentile, 0 < p <= 100
+
+     @return  a value at least the percentile and within about 3% of it, or 0 if there are no values
+     */
+    public long percentile(double p) {
+
+        long total = 0;
+
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            total += counts.get(i);
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(p / 100 * total));
+        long seen = 0;
+
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+
+            seen += counts.get(i);
+
+            if (seen >= rank) {
+                return highestOf(i);
+            }
+        }
+
+        return 0;
+    }
+
+
+    /**
+     Get the largest value recorded, as the highest value of its bucket.
+
+     @return  a value at least the largest and within about 3% of it, or 0 if there are no values
+     */
+    public long max() {
+
+        for (int i = NUM_BUCKETS - 1; i >= 0; i--) {
+            if (counts.get(i) != 0) {
+                return highestOf(i);
+            }
+        }
+
+        return 0;
+    }
+
+
+    /**
+     Copy the histogram as it is now. Values recorded while it is copied may be left out.
+
+     @return  a histogram of the values recorded so far
+     */
+    public Histogram snapshot() {
+
+        Histogram copy = new Histogram();
+
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            copy.counts.set(i, counts.get(i));
+        }
+
+        copy.count.add(count.sum());
+        copy.sum.add(sum.sum());
+
+        return copy;
+    }
+
+
+    /**
+     Get the values recorded since an earlier snapshot of this histogram.
+
+     @param earlier  a snapshot of this histogram taken before this one
+
+     @return  a histogram of the values this one has and earlier has not
+     */
+    public Histogram since(Histogram earlier) {
+
+        Histogram difference = new Histogram();
+
+        for (int i = 0; i < NUM_BUCKETS; i++) {
+            difference.counts.set(i, counts.get(i) - earlier.counts.get(i));
+        }
+
+        difference.count.add(count.sum() - earlier.count.sum());
+        difference.sum.add(sum.sum() - earlier.sum.sum());
+
+        return difference;
+    }
+
+
+    /**
+     Get the bucket of a value.
+
+     @param value  the value, at least 0
+     */
+    private static int bucketOf(long value) {
+
+        if (value < LINEAR) {
+            return (int) value;
+        }
+
+        // shift the value down until it is in [SUB_BUCKETS, 2 * SUB_BUCKETS)
+        int shift = Long.SIZE - Long.numberOfLeadingZeros(value) - 1 - SUB_BITS;
+
+        return LINEAR + (shift - 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+
+    /**
+     Get the highest value of a bucket.
+
+     @param bucket  the bucket
+     */
+    private static long highestOf(int bucket) {
+
+        if (bucket < LINEAR) {
+            return bucket;
+        }
+
+        int shift = (bucket - LINEAR) / SUB_BUCKETS + 1;
+        long sub = (bucket - LINEAR) % SUB_BUCKETS + SUB_BUCKETS;
+
+        return ((sub + 1) << shift) - 1; // for the last bucket, 2^63 - 1 wraps round to Long.MAX_VALUE
+    }
+}
@@ -0,0 +1,292 @@
+/**
+ A compact, primitive signature of the letters in a word. Two words are anagrams of each other
+ iff they have the same signature.
+ The signature is the 26-letter count vector of the word packed into a pair of longs, 4 bits
+ per letter: letters 'a' to 'p' are in the low long and letters 'q' to 'z' are in the high long.
+ Only words made of the lower case letters 'a' to 'z' with no letter repeated more than
+ MAX_COUNT times can be represented this way (every word in sowpods.txt can).
+ */
+public class LetterSignature {
+
+    public static final int ALPHABET_SIZE = 26;
+    // number of letters the signature can count
+
+    public static final int ALL_LETTERS = (1 << ALPHABET_SIZE) - 1;
+    // the letter-presence mask of every letter, as mask() makes it
+
+    public static final int MAX_COUNT = 15;
+    // largest multiplicity of a single letter that fits in the 4 bits of a letter
+
+    private static final int LETTERS_IN_LOW = 16;
+    // letters 'a' to 'p' are packed into the low long, the rest into the high long
+
+    private static final int BITS_PER_LETTER = 4;
+
+
+    /**
+     Returns true iff the char c is one of the letters a signature counts.
+
+     @param c  the char to check
+
+     @return  true iff 'a' <= c <= 'z'
+     */
+    public static boolean isLetter(char c) {
+        return c >= 'a' && c <= 'z';
+    }
+
+
+    /**
+     Count the letters of string s into counts, which has ALPHABET_SIZE elements and is cleared first.
+
+     @param s  the string to count
+     @param counts  the array the multiplicity of each letter is written to
+
+     @return  true iff s can be represented by a signature; if false, the content of counts is undefined
+     */
+    public static boolean countLetters(CharSequence s, int[] counts) {
+
+        for (int i = 0; i < ALPHABET_SIZE; i++) {
+            counts[i] = 0;
+        }
+
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+
+            if (!isLetter(c) || counts[c - 'a'] == MAX_COUNT) {
+                return false;
+            }
+
+            counts[c - 'a']++;
+        }
+
+        return true;
+    }
+
+
+    /**
+     Returns true iff string s can be represented by a signature, that is, it only has the letters
+     'a' to 'z' and no letter occurs more than MAX_COUNT times. No memory is allocated.
+
+     @param s  the string to check
+
+     @return  true iff low(s) and high(s) describe s
+     */
+    public static boolean fits(CharSequence s) {
+
+        long lowPacked = 0;
+        long highPacked = 0;
+
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+
+            if (!isLetter(c)) {
+                return false;
+            }
+
+            int letter = c - 'a';
+
+            if (count(lowPacked, highPacked, letter) == MAX_COUNT) {
+                return false;
+            }
+
+            if (letter < LETTERS_IN_LOW) {
+                lowPacked += 1L << (letter * BITS_PER_LETTER);
+            } else {
+                highPacked += 1L << ((letter - LETTERS_IN_LOW) * BITS_PER_LETTER);
+            }
+        }
+
+        return true;
+    }
+
+
+    /**
+     Get the low long of the signature of string s without building a count vector.
+     PRE: fits(s)
+
+     @param s  the string to process
+
+     @return  the packed counts of the letters 'a' to 'p'
+     */
+    public static long low(CharSequence s) {
+
+        long packed = 0;
+
+        for (int i = 0; i < s.length(); i++) {
+            int letter = s.charAt(i) - 'a';
+
+            if (letter < LETTERS_IN_LOW) {
+                packed += 1L << (letter * BITS_PER_LETTER);
+            }
+        }
+
+        return packed;
+    }
+
+
+    /**
+     Get the high long of the signature of string s without building a count vector.
+     PRE: fits(s)
+
+     @param s  the string to process
+
+     @return  the packed counts of the letters 'q' to 'z'
+     */
+    public static long high(CharSequence s) {
+
+        long packed = 0;
+
+        for (int i = 0; i < s.length(); i++) {
+            int letter = s.charAt(i) - 'a';
+
+            if (letter >= LETTERS_IN_LOW) {
+                packed += 1L << ((letter - LETTERS_IN_LOW) * BITS_PER_LETTER);
+            }
+        }
+
+        return packed;
+    }
+
+
+    /**
+     Get the low long of the signature of the given count vector.
+     PRE: 0 <= counts[i] <= MAX_COUNT
+
+     @param counts  multiplicity of each letter, 'a' at index 0
+
+     @return  the packed counts of the letters 'a' to 'p'
+     */
+    public static long low(int[] counts) {
+
+        long packed = 0;
+
+        for (int i = 0; i < LETTERS_IN_LOW; i++) {
+            packed |= ((long) counts[i]) << (i * BITS_PER_LETTER);
+        }
+
+        return packed;
+    }
+
+
+    /**
+     Get the high long of the signature of the given count vector.
+     PRE: 0 <= counts[i] <= MAX_COUNT
+
+     @param counts  multiplicity of each letter, 'a' at index 0
+
+     @return  the packed counts of the letters 'q' to 'z'
+     */
+    public static long high(int[] counts) {
+
+        long packed = 0;
+
+        for (int i = LETTERS_IN_LOW; i < ALPHABET_SIZE; i++) {
+            packed |= ((long) counts[i]) << ((i - LETTERS_IN_LOW) * BITS_PER_LETTER);
+        }
+
+        return packed;
+    }
+
+
+    /**
+     Get the multiplicity of one letter from a signature.
+
+     @param low  the low long of the signature
+     @param high  the high long of the signature
+     @param letter  the letter index, 0 for 'a'
+
+     @return  how many times the letter occurs
+     */
+    public static int count(long low, long high, int letter) {
+
+        if (letter < LETTERS_IN_LOW) {
+            return (int) (low >>> (letter * BITS_PER_LETTER)) & MAX_COUNT;
+        }
+
+        return (int) (high >>> ((letter - LETTERS_IN_LOW) * BITS_PER_LETTER)) & MAX_COUNT;
+    }
+
+
+    /**
+     Get the number of letters in the word a signature describes.
+
+     @param low  the low long of the signature
+     @param high  the high long of the signature
+
+     @return  the sum of all the letter counts
+     */
+    public static int length(long low, long high) {
+
+        int total = 0;
+
+        for (int i = 0; i < ALPHABET_SIZE; i++) {
+            total += count(low, high, i);
+        }
+
+        return total;
+    }
+
+
+    /**
+     Get the letter-presence mask of the word a signature describes.
+
+     @param low  the low long of the signature
+     @param high  the high long of the signature
+
+     @return  a mask with bit i set iff the letter 'a' + i occurs
+     */
+    public static int mask(long low, long high) {
+
+        int mask = 0;
+
+        for (int i = 0; i < ALPHABET_SIZE; i++) {
+            if (count(low, high, i) > 0) {
+                mask |= 1 << i;
+            }
+        }
+
+        return mask;
+    }
+
+
+    /**
+     Get the letter-presence mask of a string; chars that are not letters a signature counts are ignored.
+
+     @param s  the string
+
+     @return  a mask with bit i set iff the letter 'a' + i occurs in s
+     */
+    public static int mask(CharSequence s) {
+
+        int mask = 0;
+
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+
+            if (isLetter(c)) {
+                mask |= 1 << (c - 'a');
+            }
+        }
+
+        return mask;
+    }
+
+
+    /**
+     Mix the two longs of a signature into a well distributed hash for open addressing.
+
+     @param low  the low long of the signature
+     @param high  the high long of the signature
+
+     @return  a hash code of the signature
+     */
+    public static int hash(long low, long high) {
+
+        long h = low * 0x9E3779B97F4A7C15L + high;
+        h ^= h >>> 32;
+        h *= 0xC2B2AE3D27D4EB4FL;
+        h ^= h >>> 29;
+
+        return (int) h;
+    }
+}
@@ -0,0 +1,555 @@
+/**
+ An anagram dictionary that can change while it is being searched: words can be added and
+ removed, and the dictionary can be reloaded from a word file, applying only the words that differ.
+ Every version of the dictionary is an immutable RackSolver. Readers get the current version with
+ get() and use it for a whole query, so they never wait for a writer and never see a change half
+ applied; a writer builds the next version and publishes it with a single volatile write.
+ Writers are serialized with each other.
+ A version is a base dictionary and its signature trie, which all versions share, plus the
+ changes made since the base was built: a small dictionary of the added words and a set of the
+ removed ones. So a change costs time in the number of changes since the base, not in the size
+ of the dictionary. When the changes outgrow a fraction of the base they are merged into a new
+ base, which readers do not wait for either.
+ A reload keeps the bytes of the word file, so that the next reload only reads the parts of the
+ file that differ from them.
+ Every version starts with an empty result cache, since the results of the last one may be stale,
+ but they all record their queries in the same QueryMetrics.
+ */
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+public class LiveDictionary implements Supplier<RackSolver> {
+
+    private static final int MIN_MERGE_CHANGES = 4096;
+    private static final int MERGE_FRACTION = 16;
+    // the changes are merged into a new base once there are more than MIN_MERGE_CHANGES of them
+    // and more than 1 / MERGE_FRACTION of the words of the base
+
+    private static final int CHUNK_WORDS = 64;
+    // the average number of words of a chunk of a word file, when two word files are compared
+
+    private volatile RackSolver current;
+
+    // the state of the writers, guarded by this: the base dictionary and its solver, the words
+    // added that are not in the base, and the words of the base that have been removed
+    private AnagramDictionary base;
+    private RackSolver baseSolver;
+    private HashSet<String> added = new HashSet<String>();
+    private HashSet<String> removed = new HashSet<String>();
+    private int cacheSize;
+    private QueryMetrics metrics;
+
+    private byte[] lastFile;
+    private Chunks lastChunks;
+    // the bytes of the word file of the last reload and its chunks, or null if the dictionary has
+    // changed since
+
+
+    /**
+     Creates a live dictionary whose first version is an anagram dictionary.
+
+     @param dictionary  the words of the first version
+     @param cacheSize  the capacity of the result cache of every version, or 0 for no cache
+     */
+    public LiveDictionary(AnagramDictionary dictionary, int cacheSize) {
+        this(dictionary, cacheSize, null);
+    }
+
+
+    /**
+     Creates a live dictionary whose versions all record their queries in the same metrics.
+
+     @param dictionary  the words of the first version
+     @param cacheSize  the capacity of the result cache of every version, or 0 for no cache
+     @param metrics  the metrics the queries of every version are recorded in, or null to record nothing
+     */
+    public LiveDictionary(AnagramDictionary dictionary, int cacheSize, QueryMetrics metrics) {
+        this.cacheSize = cacheSize;
+        this.metrics = metrics;
+        base = dictionary;
+        baseSolver = new RackSolver(base, newCache(), metrics);
+        current = baseSolver;
+    }
+
+
+    /**
+     Get the current version of the dictionary. It never changes, so a query should get the
+     version once and use it throughout.
+
+     @return  the rack solver of the current version
+     */
+    @Override
+    public RackSolver get() {
+        return current;
+    }
+
+
+    /**
+     Add a word to the dictionary.
+
+     @param word  the word to add
+
+     @return  true iff the word was not in the dictionary already
+     */
+    public synchronized boolean add(String word) {
+
+        if (!addWord(word)) {
+            return false;
+        }
+
+        lastFile = null; // the dictionary is no longer the words of the last file
+
+        publish();
+        return true;
+    }
+
+
+    /**
+     Remove a word from the dictionary.
+
+     @param word  the word to remove
+
+     @return  true iff the word was in the dictionary
+     */
+    public synchronized boolean remove(String word) {
+
+        if (!removeWord(word)) {
+            return false;
+        }
+
+        lastFile = null; // the dictionary is no longer the words of the last file
+
+        publish();
+        return true;
+    }
+
+
+    /**
+     Make the dictionary the words of a word file: the file is compared with the dictionary and
+     only the words that differ are added or removed, all of them in one new version.
+     PRE: The strings in the file are unique.
+
+     @param fileName  the name of the word file
+
+     @return  the words added and removed
+
+     @throws FileNotFoundException  if the file is not found
+     @throws IOException  if the file cannot be read
+     */
+    public synchronized Changes reload(String fileName) throws IOException {
+
+        byte[] file;
+
+        try {
+            file = Files.readAllBytes(Paths.get(fileName));
+        } catch (NoSuchFileException exception) {
+            throw new FileNotFoundException(fileName);
+        }
+
+        Chunks chunks = new Chunks(file);
+        Changes changes = lastFile == null ? compare(file) : compare(lastFile, lastChunks, file, chunks);
+
+        for (int i = 0; i < changes.removed.size(); i++) {
+            removeWord(changes.removed.get(i));
+        }
+
+        for (int i = 0; i < changes.added.size(); i++) {
+            addWord(changes.added.get(i));
+        }
+
+        if (!changes.isEmpty()) {
+            publish();
+        }
+
+        lastFile = file;
+        lastChunks = chunks;
+
+        return changes;
+    }
+
+
+    /**
+     Reload the dictionary from a word file whenever the file changes, checking it on a daemon
+     thread every intervalMillis milliseconds. What every reload changed, or why it failed, is
+     printed to log.
+
+     PRE: The dictionary is the words of the file, as it is now.
+
+     @param fileName  the name of the word file
+     @param intervalMillis  the time between two checks of the file
+     @param log  the stream the reloads are reported on
+
+     @throws IOException  if the file cannot be read
+     */
+    public void watch(String fileName, long intervalMillis, PrintStream log) throws IOException {
+
+        File file = new File(fileName);
+        long[] seen = { file.lastModified(), file.length() };
+
+        // remember the file, so that even the first reload only reads what changed
+        synchronized (this) {
+            lastFile = Files.readAllBytes(file.toPath());
+            lastChunks = new Chunks(lastFile);
+        }
+
+        ScheduledExecutorService watcher = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "dictionary watcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        watcher.scheduleWithFixedDelay(() -> {
+
+            if (file.lastModified() == seen[0] && file.length() == seen[1]) {
+                return;
+            }
+
+            seen[0] = file.lastModified();
+            seen[1] = file.length();
+
+            try {
+                long start = System.nanoTime();
+                Changes changes = reload(fileName);
+                log.println("Reloaded " + fileName + ": " + changes + " in "
+                        + (System.nanoTime() - start) / 1000000 + " ms");
+            } catch (IOException exception) {
+                log.println("Cannot reload " + fileName + ": " + exception.getMessage());
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+
+    /**
+     Compare the words of a word file with the words of the dictionary. The words of the file are
+     looked up in the base dictionary as they are read, marking the ones found, so a String is
+     only created for a word that is not in the base.
+
+     @param file  the bytes of the word file
+
+     @return  the words of the file that are not in the dictionary and the other way round
+     */
+    private Changes compare(byte[] file) throws IOException {
+
+        BitSet inFile = new BitSet(base.numWords());
+        // the words of the base buckets that are in the file
+
+        HashSet<String> others = new HashSet<String>();
+        // the other words of the file: odd words of the base and words that are not in the base
+
+        MappedWordReader reader = new MappedWordReader(ByteBuffer.wrap(file));
+
+        while (reader.next()) {
+
+            int i = LetterSignature.fits(reader) ? base.indexOf(reader) : -1;
+
+            if (i >= 0) {
+                inFile.set(i);
+            } else {
+                others.add(reader.word());
+            }
+        }
+
+        Changes changes = new Changes();
+
+        // words of the dictionary that are not in the file
+        for (int i = inFile.nextClearBit(0); i < base.numWords(); i = inFile.nextClearBit(i + 1)) {
+
+            String word = base.word(i);
+
+            if (!removed.contains(word)) {
+                changes.removed.add(word);
+            }
+        }
+
+        for (String word : base.oddWordList()) {
+            if (!others.contains(word) && !removed.contains(word)) {
+                changes.removed.add(word);
+            }
+        }
+
+        for (String word : added) {
+            if (!others.contains(word)) {
+                changes.removed.add(word);
+            }
+        }
+
+        // words of the file that are not in the dictionary
+        for (String word : removed) {
+
+            int i = LetterSignature.fits(word) ? base.indexOf(word) : -1;
+
+            if (i >= 0 ? inFile.get(i) : others.contains(word)) {
+                changes.added.add(word);
+            }
+        }
+
+        for (String word : others) {
+            if (!added.contains(word) && !base.contains(word)) {
+                changes.added.add(word);
+            }
+        }
+
+        return changes;
+    }
+
+
+    /**
+     Compare a word file with the word file the dictionary was last reloaded from, when the
+     dictionary has not changed since. Both files are cut into chunks of about CHUNK_WORDS words
+     whose ends depend only on the words there (see Chunks), so an edit only changes the chunks
+     around it and the chunks after it line up again. Only the words of the chunks that are not
+     in the other file are read.
+
+     @param old  the bytes of the last word file
+     @param before  the chunks of old
+     @param file  the bytes of the new word file
+     @param after  the chunks of file
+
+     @return  the words of the new file that are not in the old one and the other way round
+     */
+    private Changes compare(byte[] old, Chunks before, byte[] file, Chunks after) throws IOException {
+
+        HashMap<Integer, Integer> chunkOf = new HashMap<Integer, Integer>();
+        boolean[] kept = new boolean[before.count];
+
+        for (int k = 0; k < before.count; k++) {
+            chunkOf.putIfAbsent(before.hash[k], k);
+        }
+
+        HashSet<String> newWords = new HashSet<String>();
+
+        for (int k = 0; k < after.count; k++) {
+
+            Integer same = chunkOf.get(after.hash[k]);
+
+            if (same != null && !kept[same] && Arrays.equals(old, before.start(same), before.end[same],
+                                                              file, after.start(k), after.end[k])) {
+                kept[same] = true;
+            } else {
+                addWords(file, after.start(k), after.end[k], newWords);
+            }
+        }
+
+        HashSet<String> oldWords = new HashSet<String>();
+
+        for (int k = 0; k < before.count; k++) {
+            if (!kept[k]) {
+                addWords(old, before.start(k), before.end[k], oldWords);
+            }
+        }
+
+        // the words of unchanged chunks are in both files, and the words of a file are unique
+        Changes changes = new Changes();
+
+        for (String word : oldWords) {
+            if (!newWords.contains(word)) {
+                changes.removed.add(word);
+            }
+        }
+
+        for (String word : newWords) {
+            if (!oldWords.contains(word)) {
+                changes.added.add(word);
+            }
+        }
+
+        return changes;
+    }
+
+
+    private static void addWords(byte[] file, int from, int to, HashSet<String> result) throws IOException {
+
+        MappedWordReader reader = new MappedWordReader(ByteBuffer.wrap(file, from, to - from));
+
+        while (reader.next()) {
+            result.add(reader.word());
+        }
+    }
+
+
+    /**
+     Add a word to the changes without publishing them.
+
+     @return  true iff the word was not in the dictionary already
+     */
+    private boolean addWord(String word) {
+
+        if (removed.remove(word)) {
+            return true; // a word of the base is back
+        }
+
+        return !base.contains(word) && added.add(word);
+    }
+
+
+    /**
+     Remove a word from the changes without publishing them.
+
+     @return  true iff the word was in the dictionary
+     */
+    private boolean removeWord(String word) {
+
+        if (added.remove(word)) {
+            return true;
+        }
+
+        return base.contains(word) && removed.add(word);
+    }
+
+
+    /**
+     Get all the words of the dictionary, as the writers see it.
+
+     @return  a new list of the words
+     */
+    private ArrayList<String> words() {
+
+        ArrayList<String> result = new ArrayList<String>(base.numWords() + added.size());
+
+        for (int i = 0; i < base.numWords(); i++) {
+
+            String word = base.word(i);
+
+            if (!removed.contains(word)) {
+                result.add(word);
+            }
+        }
+
+        for (String word : base.oddWordList()) {
+            if (!removed.contains(word)) {
+                result.add(word);
+            }
+        }
+
+        result.addAll(added);
+
+        return result;
+    }
+
+
+    /**
+     Make the changes the current version, merging them into a new base if they have grown too many.
+     */
+    private void publish() {
+
+        if (added.size() + removed.size() > Math.max(MIN_MERGE_CHANGES, base.numWords() / MERGE_FRACTION)) {
+
+            base = new AnagramDictionary(words(), base.getScoreTable());
+            baseSolver = new RackSolver(base, newCache(), metrics);
+            added.clear();
+            removed.clear();
+            current = baseSolver;
+            return;
+        }
+
+        AnagramDictionary addedWords = added.isEmpty() ? null : new AnagramDictionary(added, base.getScoreTable());
+
+        // the version gets its own copy of the removed words, so later changes do not affect it
+        current = new RackSolver(baseSolver, addedWords, new HashSet<String>(removed), newCache());
+    }
+
+
+    private ResultCache newCache() {
+        return cacheSize > 0 ? new ResultCache(cacheSize) : null;
+    }
+
+
+    /**
+     A word file cut into chunks: a chunk ends with the whitespace after a word whose hash is 0
+     modulo CHUNK_WORDS, or at the end of the file. Chunk k is the bytes [start(k), end[k]) and
+     hash[k] is a hash of its words; chunks with the same hash still need their bytes compared.
+     */
+    private static class Chunks {
+
+        int[] end = new int[64];
+        int[] hash = new int[64];
+        int count = 0;
+
+        Chunks(byte[] file) {
+
+            int chunkHash = 0;
+            int wordHash = 0;
+
+            for (int i = 0; i < file.length; i++) {
+
+                byte b = file[i];
+
+                // every whitespace byte is at most ' ', so most bytes take one comparison
+                if (b > ' ' || !MappedWordReader.isSpace(b)) {
+                    wordHash = wordHash * 31 + b;
+                } else if (wordHash != 0) {
+
+                    chunkHash = chunkHash * 31 + wordHash;
+
+                    if (((wordHash * 0x9E3779B9) >>> 16) % CHUNK_WORDS == 0) {
+                        add(i + 1, chunkHash);
+                        chunkHash = 0;
+                    }
+
+                    wordHash = 0;
+                }
+            }
+
+            if (start(count) < file.length) {
+                add(file.length, chunkHash);
+            }
+        }
+
+        int start(int k) {
+            return k == 0 ? 0 : end[k - 1];
+        }
+
+        private void add(int chunkEnd, int chunkHash) {
+
+            if (count == end.length) {
+                end = Arrays.copyOf(end, count * 2);
+                hash = Arrays.copyOf(hash, count * 2);
+            }
+
+            end[count] = chunkEnd;
+            hash[count] = chunkHash;
+            count++;
+        }
+    }
+
+
+    /**
+     The words a reload added to and removed from the dictionary.
+     */
+    public static class Changes {
+
+        private ArrayList<String> added = new ArrayList<String>();
+        private ArrayList<String> removed = new ArrayList<String>();
+
+        public List<String> getAdded() { return added; }
+        public List<String> getRemoved() { return removed; }
+
+        public boolean isEmpty() {
+            return added.isEmpty() && removed.isEmpty();
+        }
+
+        /**
+         Returns the number of words added and removed, e.g. "12 words added, 3 removed".
+         */
+        @Override
+        public String toString() {
+            return added.size() + " words added, " + removed.size() + " removed";
+        }
+    }
+}
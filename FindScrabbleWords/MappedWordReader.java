@@ -0,0 +1,217 @@
+/**
+ Reads the whitespace-separated words of a file by memory-mapping it and scanning the bytes directly.
+ The current word is a view into the mapped bytes (this object is itself the CharSequence of the
+ current word), so no String is created unless the caller asks for one with word().
+ Files of any size are read through a sliding window, so they are never buffered on the heap.
+ The words of bytes already in memory can be read the same way.
+ Bytes are read as Latin-1 by charAt; word() decodes a word with non-ASCII bytes as UTF-8.
+ */
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+public class MappedWordReader implements CharSequence, AutoCloseable {
+
+    private static final int WINDOW_SIZE = 1 << 26;
+    // number of bytes mapped at a time (64 MB)
+
+    private RandomAccessFile file;
+    private FileChannel channel;
+    private long fileSize;
+
+    private ByteBuffer window;
+    private long windowStart = 0;
+    // position in the file of window.get(0)
+
+    private int wordStart = 0;
+    private int wordEnd = 0;
+    // the current word is window[wordStart, wordEnd)
+
+    private byte[] scratch = new byte[64];
+    // reused to copy the bytes of a word when word() is called
+
+
+    /**
+     Open a file for reading words.
+
+     @param fileName  the name of the file to read from
+
+     @throws FileNotFoundException  if the file is not found
+     @throws IOException  if the file cannot be mapped
+     */
+    public MappedWordReader(String fileName) throws IOException {
+
+        file = new RandomAccessFile(fileName, "r");
+        channel = file.getChannel();
+
+        // the caller gets no reader to close if the file cannot be mapped, so it is closed here
+        try {
+            fileSize = channel.size();
+            mapWindow(0);
+        } catch (IOException exception) {
+            close();
+            throw exception;
+        }
+    }
+
+
+    /**
+     Read the words of bytes in memory, from their position to their limit.
+
+     @param bytes  the bytes to read from
+     */
+    public MappedWordReader(ByteBuffer bytes) {
+        window = bytes.slice();
+        fileSize = window.limit();
+    }
+
+
+    /**
+     Advance to the next word in the file.
+
+     @return  true iff there is a next word, false at the end of the file
+
+     @throws IOException  if the next part of the file cannot be mapped
+     */
+    public boolean next() throws IOException {
+
+        int pos = wordEnd;
+
+        while (true) {
+
+            // skip the whitespace before the word
+            while (pos < window.limit() && isSpace(window.get(pos))) {
+                pos++;
+            }
+
+            if (pos == window.limit()) {
+                if (windowStart + pos >= fileSize) {
+                    return false;
+                }
+                mapWindow(windowStart + pos);
+                pos = 0;
+                continue;
+            }
+
+            int end = pos;
+
+            while (end < window.limit() && !isSpace(window.get(end))) {
+                end++;
+            }
+
+            // the word may continue in the next window: map again starting at the word,
+            // unless the word already fills a whole window
+            if (end == window.limit() && windowStart + end < fileSize && pos > 0) {
+                mapWindow(windowStart + pos);
+                pos = 0;
+                continue;
+            }
+
+            wordStart = pos;
+            wordEnd = end;
+            return true;
+        }
+    }
+
+
+    /**
+     Create a String of the current word.
+
+     @return  the current word
+     */
+    public String word() {
+
+        int len = length();
+        boolean ascii = true;
+
+        if (scratch.length < len) {
+            scratch = new byte[Math.max(len, scratch.length * 2)];
+        }
+
+        for (int i = 0; i < len; i++) {
+            scratch[i] = window.get(wordStart + i);
+            ascii = ascii && scratch[i] >= 0;
+        }
+
+        return new String(scratch, 0, len, ascii ? StandardCharsets.ISO_8859_1 : StandardCharsets.UTF_8);
+    }
+
+
+    /**
+     Get the number of bytes in the current word.
+
+     @return  the length of the current word
+     */
+    @Override
+    public int length() {
+        return wordEnd - wordStart;
+    }
+
+
+    /**
+     Get one byte of the current word as a char.
+
+     @param index  position in the current word
+
+     @return  the byte at index, read as Latin-1
+     */
+    @Override
+    public char charAt(int index) {
+        return (char) (window.get(wordStart + index) & 0xFF);
+    }
+
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return word().subSequence(start, end);
+    }
+
+
+    @Override
+    public String toString() {
+        return word();
+    }
+
+
+    /**
+     Release the file, if the words are read from one. The mapped window is released when it is
+     garbage collected.
+
+     @throws IOException  if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+
+        if (file != null) {
+            channel.close();
+            file.close();
+        }
+    }
+
+
+    /**
+     Map the window of the file starting at the given position.
+
+     @param start  position in the file of the first byte to map
+     */
+    private void mapWindow(long start) throws IOException {
+
+        long size = Math.min(WINDOW_SIZE, fileSize - start);
+
+        window = channel.map(FileChannel.MapMode.READ_ONLY, start, size);
+        windowStart = start;
+        wordStart = 0;
+        wordEnd = 0;
+    }
+
+
+    /**
+     Returns true iff b is an ASCII whitespace byte, which separates words.
+     */
+    static boolean isSpace(byte b) {
+        return b == ' ' || b == '\n' || b == '\r' || b == '\t' || b == '\f' || b == 0x0B;
+    }
+}
@@ -0,0 +1,93 @@
+/**
+ A legal placement of tiles on a Board: the word it makes along its row or column, where the word
+ starts and its score. The word is written the way tiles are on a board, lower case letters for
+ letter tiles and upper case letters for blank tiles, and includes the tiles already on the board
+ that it goes through.
+ */
+import java.util.Comparator;
+
+public class Move {
+
+    public static final Comparator<Move> BY_RANK =
+            Comparator.comparingInt(Move::getScore).reversed()
+                    .thenComparing(Move::getWord)
+                    .thenComparingInt(Move::getRow)
+                    .thenComparingInt(Move::getColumn)
+                    .thenComparing(Move::isAcross);
+    // best move first: the highest score, then alphabetical order of words, then position
+
+    private int row;
+    private int column;
+    private boolean across;
+    private String word;
+    private int score;
+
+
+    /**
+     Creates a move.
+
+     @param row  the row of the first letter of the word, 0 to Board.SIZE - 1
+     @param column  the column of the first letter of the word, 0 to Board.SIZE - 1
+     @param across  true if the word reads along the row, false if it reads down the column
+     @param word  the word, upper case letters for blank tiles
+     @param score  the score of the move, cross words and premium squares included
+     */
+    public Move(int row, int column, boolean across, String word, int score) {
+        this.row = row;
+        this.column = column;
+        this.across = across;
+        this.word = word;
+        this.score = score;
+    }
+
+
+    public int getRow() { return row; }
+    public int getColumn() { return column; }
+    public boolean isAcross() { return across; }
+    public String getWord() { return word; }
+    public int getScore() { return score; }
+
+
+    /**
+     Get the square the move starts on in the usual notation: the row number then the column
+     letter for a move across (e.g. "8H"), the column letter then the row number for a move down
+     (e.g. "H8").
+
+     @return  the coordinate of the move
+     */
+    public String getCoordinate() {
+
+        String rowName = Integer.toString(row + 1);
+        String columnName = String.valueOf((char) ('A' + column));
+
+        return across ? rowName + columnName : columnName + rowName;
+    }
+
+
+    /**
+     Returns the coordinate and the word of the move, e.g. "8H quiRe".
+     */
+    @Override
+    public String toString() {
+        return getCoordinate() + " " + word;
+    }
+
+
+    @Override
+    public boolean equals(Object other) {
+
+        if (!(other instanceof Move)) {
+            return false;
+        }
+
+        Move move = (Move) other;
+
+        return row == move.row && column == move.column && across == move.across && word.equals(move.word);
+    }
+
+
+    @Override
+    public int hashCode() {
+        return ((row * Board.SIZE + column) * 2 + (across ? 1 : 0)) * 31 + word.hashCode();
+    }
+}
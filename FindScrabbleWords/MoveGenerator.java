@@ -0,0 +1,510 @@
+/**
+ Generates every legal move of a rack on a Board, with its score, using the word graph (DAWG) of
+ an anagram dictionary. This is the anchor and cross-check algorithm of Appel and Jacobson,
+ "The World's Fastest Scrabble Program" (1988):
+ - an anchor is an empty square next to a tile (the center square on an empty board); every move
+   covers at least one anchor, and a move across is generated from the leftmost anchor it covers;
+ - the cross-check of an empty square is the set of letters that make a word with the tiles
+   above and below it, so a move across only puts letters on squares that allow them;
+ - for every anchor, the left part of the word is either the tiles just left of the anchor or
+   every prefix of a word the rack can spell on the empty squares left of it that are not
+   anchors, and the word is then extended right from the anchor through the graph.
+ Moves down are generated the same way on the transposed board.
+ Scores use the letter values of the dictionary's ScoreTable with the premium squares the move
+ covers, plus the cross words it makes and BINGO_BONUS for playing BINGO_TILES tiles.
+ A generator never changes after it is created, so one generator can be shared by many threads.
+ */
+import java.util.ArrayList;
+import java.util.Collection;
+
+public class MoveGenerator {
+
+    public static final int BINGO_TILES = 7;
+    public static final int BINGO_BONUS = 50;
+    // playing BINGO_TILES tiles in one move scores BINGO_BONUS more
+
+    private static final int NO_CROSS_WORD = -1;
+
+    private WordGraph graph;
+    private ScoreTable st;
+
+
+    /**
+     Creates a move generator over an anagram dictionary, building its word graph.
+
+     @param ad  the anagram dictionary of the words that can be played
+     */
+    public MoveGenerator(AnagramDictionary ad) {
+        this(ad, AnagramDictionary.ALL_LEXICONS);
+    }
+
+
+    /**
+     Creates a move generator of the words of some lexicons of an anagram dictionary.
+
+     @param ad  the anagram dictionary of the words that can be played
+     @param lexicons  the mask of the lexicons of the words that can be played
+     */
+    public MoveGenerator(AnagramDictionary ad, int lexicons) {
+        graph = new WordGraph(ad, lexicons);
+        st = ad.getScoreTable();
+    }
+
+
+    /**
+     Get the word graph of the moves.
+
+     @return  the word graph
+     */
+    public WordGraph getGraph() {
+        return graph;
+    }
+
+
+    /**
+     Find all the moves of a rack on a board.
+
+     @param board  the board
+     @param rack  the tiles of the rack; '?' or '_' for a blank tile, other chars that are not
+                  letters are ignored
+
+     @return  all the moves, in no particular order
+     */
+    public ArrayList<Move> generate(Board board, String rack) {
+
+        ArrayList<Move> result = new ArrayList<Move>();
+        generate(board, rack, result);
+
+        return result;
+    }
+
+
+    /**
+     Add all the moves of a rack on a board to a collection as they are found.
+
+     @param board  the board
+     @param rack  the tiles of the rack; '?' or '_' for a blank tile, other chars that are not
+                  letters are ignored
+     @param result  the collection the moves are added to
+
+     @return  the number of moves found
+     */
+    public int generate(Board board, String rack, Collection<Move> result) {
+
+        Search search = new Search(board, rack, result);
+
+        search.generate(true);
+
+        // on an empty board a move down is a move across turned over, so only the moves across are kept
+        if (!board.isEmpty()) {
+            search.generate(false);
+        }
+
+        return search.found;
+    }
+
+
+    /**
+     Find all the moves of a rack on a board and report them the way WordFinder prints them:
+     the number of moves, then every move with its score, best first.
+
+     @param board  the board
+     @param rack  the tiles of the rack
+     @param limit  the number of moves to list, or 0 to list them all
+
+     @return  the lines of the report, each ending with a newline
+     */
+    public String report(Board board, String rack, int limit) {
+
+        ArrayList<Move> moves = generate(board, rack);
+        StringBuilder out = new StringBuilder();
+
+        out.append("We can make ").append(moves.size()).append(" moves from \"").append(rack).append("\"\n");
+
+        // no result to print out
+        if (moves.isEmpty()) {
+            return out.toString();
+        }
+
+        moves.sort(Move.BY_RANK);
+
+        int listed = limit <= 0 ? moves.size() : Math.min(limit, moves.size());
+
+        if (limit <= 0) {
+            out.append("All of the moves with their scores (sorted by score):\n");
+        } else {
+            out.append("The best ").append(listed).append(" moves with their scores:\n");
+        }
+
+        for (int i = 0; i < listed; i++) {
+            out.append(moves.get(i).getScore()).append(": ").append(moves.get(i)).append('\n');
+        }
+
+        return out.toString();
+    }
+
+
+    /**
+     The state of generating the moves of one rack on one board. Squares are seen in the
+     direction being generated: for moves down the board is transposed, so a "row" is a column.
+     */
+    private class Search {
+
+        private Board board;
+        private Collection<Move> result;
+        private int found = 0;
+
+        private int[] counts = new int[LetterSignature.ALPHABET_SIZE];
+        private int blanks = 0;
+        private int rackSize = 0;
+
+        private boolean across;
+        private char[][] tiles = new char[Board.SIZE][Board.SIZE];
+        private int[][] letterMultiplier = new int[Board.SIZE][Board.SIZE];
+        private int[][] wordMultiplier = new int[Board.SIZE][Board.SIZE];
+
+        // crossCheck[row][col] is the mask of the letters an empty square allows, and crossScore[row][col]
+        // the score of the tiles of its cross word, or NO_CROSS_WORD if it has none
+        private int[][] crossCheck = new int[Board.SIZE][Board.SIZE];
+        private int[][] crossScore = new int[Board.SIZE][Board.SIZE];
+        private boolean[][] anchor = new boolean[Board.SIZE][Board.SIZE];
+
+        // the move being built: word[0 .. length) are the letters from column start of row
+        private char[] word = new char[Board.SIZE];
+        private int length;
+        private int row;
+        private int start;
+        private int anchorColumn;
+
+
+        Search(Board board, String rack, Collection<Move> result) {
+
+            this.board = board;
+            this.result = result;
+
+            for (int i = 0; i < rack.length(); i++) {
+
+                char c = rack.charAt(i);
+
+                if (Rack.isBlank(c)) {
+                    blanks++;
+                    rackSize++;
+                } else if (LetterSignature.isLetter(Character.toLowerCase(c))) {
+                    counts[Character.toLowerCase(c) - 'a']++;
+                    rackSize++;
+                }
+            }
+        }
+
+
+        /**
+         Generate the moves in one direction.
+
+         @param across  true for the moves across, false for the moves down
+         */
+        void generate(boolean across) {
+
+            this.across = across;
+
+            for (int r = 0; r < Board.SIZE; r++) {
+                for (int c = 0; c < Board.SIZE; c++) {
+                    tiles[r][c] = across ? board.get(r, c) : board.get(c, r);
+                    letterMultiplier[r][c] = across ? board.letterMultiplier(r, c) : board.letterMultiplier(c, r);
+                    wordMultiplier[r][c] = across ? board.wordMultiplier(r, c) : board.wordMultiplier(c, r);
+                }
+            }
+
+            findAnchors();
+            findCrossChecks();
+
+            for (row = 0; row < Board.SIZE; row++) {
+
+                int emptyLeft = 0;
+                // empty squares that are not anchors just left of the column
+
+                for (int col = 0; col < Board.SIZE; col++) {
+
+                    if (!anchor[row][col]) {
+                        emptyLeft = tiles[row][col] == Board.EMPTY ? emptyLeft + 1 : 0;
+                        continue;
+                    }
+
+                    anchorColumn = col;
+                    length = 0;
+
+                    if (col > 0 && tiles[row][col - 1] != Board.EMPTY) {
+
+                        // the left part is the tiles just left of the anchor
+                        start = col;
+
+                        while (start > 0 && tiles[row][start - 1] != Board.EMPTY) {
+                            start--;
+                        }
+
+                        int node = graph.root();
+
+                        for (int c = start; c < col && node != WordGraph.NONE; c++) {
+                            word[length++] = tiles[row][c];
+                            node = graph.child(node, Character.toLowerCase(tiles[row][c]) - 'a');
+                        }
+
+                        if (node != WordGraph.NONE) {
+                            extendRight(node, col);
+                        }
+                    } else {
+                        leftPart(graph.root(), Math.min(emptyLeft, rackSize - 1));
+                    }
+
+                    emptyLeft = 0;
+                }
+            }
+        }
+
+
+        /**
+         Mark the empty squares next to a tile as anchors, or the center square of an empty board.
+         */
+        private void findAnchors() {
+
+            for (int r = 0; r < Board.SIZE; r++) {
+                for (int c = 0; c < Board.SIZE; c++) {
+                    anchor[r][c] = tiles[r][c] == Board.EMPTY
+                            && (r > 0 && tiles[r - 1][c] != Board.EMPTY
+                                || r < Board.SIZE - 1 && tiles[r + 1][c] != Board.EMPTY
+                                || c > 0 && tiles[r][c - 1] != Board.EMPTY
+                                || c < Board.SIZE - 1 && tiles[r][c + 1] != Board.EMPTY);
+                }
+            }
+
+            if (board.isEmpty()) {
+                anchor[Board.SIZE / 2][Board.SIZE / 2] = true;
+            }
+        }
+
+
+        /**
+         Compute the cross-check and cross score of every empty square from the tiles above and
+         below it.
+         */
+        private void findCrossChecks() {
+
+            for (int r = 0; r < Board.SIZE; r++) {
+                for (int c = 0; c < Board.SIZE; c++) {
+
+                    if (tiles[r][c] != Board.EMPTY) {
+                        continue;
+                    }
+
+                    int top = r;
+                    int bottom = r;
+
+                    while (top > 0 && tiles[top - 1][c] != Board.EMPTY) {
+                        top--;
+                    }
+
+                    while (bottom < Board.SIZE - 1 && tiles[bottom + 1][c] != Board.EMPTY) {
+                        bottom++;
+                    }
+
+                    if (top == r && bottom == r) {
+                        crossCheck[r][c] = WordGraph.ALL_LETTERS;
+                        crossScore[r][c] = NO_CROSS_WORD;
+                        continue;
+                    }
+
+                    int score = 0;
+                    int node = graph.root();
+
+                    for (int i = top; i < r; i++) {
+                        score += tileScore(tiles[i][c]);
+
+                        if (node != WordGraph.NONE) {
+                            node = graph.child(node, Character.toLowerCase(tiles[i][c]) - 'a');
+                        }
+                    }
+
+                    for (int i = r + 1; i <= bottom; i++) {
+                        score += tileScore(tiles[i][c]);
+                    }
+
+                    int allowed = 0;
+
+                    if (node != WordGraph.NONE) {
+
+                        // try every letter that can follow the tiles above with the tiles below
+                        for (int letters = graph.letters(node); letters != 0; letters &= letters - 1) {
+
+                            int letter = Integer.numberOfTrailingZeros(letters);
+                            int end = graph.child(node, letter);
+
+                            for (int i = r + 1; i <= bottom && end != WordGraph.NONE; i++) {
+                                end = graph.child(end, Character.toLowerCase(tiles[i][c]) - 'a');
+                            }
+
+                            if (end != WordGraph.NONE && graph.isWord(end)) {
+                                allowed |= 1 << letter;
+                            }
+                        }
+                    }
+
+                    crossCheck[r][c] = allowed;
+                    crossScore[r][c] = score;
+                }
+            }
+        }
+
+
+        /**
+         Build every left part of at most limit tiles from the rack that is a prefix of a word,
+         and extend each of them right from the anchor.
+
+         @param node  the node of the left part built so far
+         @param limit  the number of tiles that can still be added to the left part
+         */
+        private void leftPart(int node, int limit) {
+
+            start = anchorColumn - length;
+            extendRight(node, anchorColumn);
+
+            if (limit == 0) {
+                return;
+            }
+
+            for (int letters = graph.letters(node); letters != 0; letters &= letters - 1) {
+
+                int letter = Integer.numberOfTrailingZeros(letters);
+                int next = graph.child(node, letter);
+
+                if (counts[letter] > 0) {
+                    counts[letter]--;
+                    word[length++] = (char) ('a' + letter);
+                    leftPart(next, limit - 1);
+                    length--;
+                    counts[letter]++;
+                }
+
+                if (blanks > 0) {
+                    blanks--;
+                    word[length++] = (char) ('A' + letter);
+                    leftPart(next, limit - 1);
+                    length--;
+                    blanks++;
+                }
+            }
+        }
+
+
+        /**
+         Extend the word built so far right from a column, through the tiles on the board and
+         with tiles from the rack on the empty squares their cross-checks allow.
+
+         @param node  the node of the word built so far
+         @param col  the column of the next letter
+         */
+        private void extendRight(int node, int col) {
+
+            if (col == Board.SIZE || tiles[row][col] == Board.EMPTY) {
+
+                // the word ends here if it covers the anchor
+                if (col > anchorColumn && graph.isWord(node)) {
+                    record(col);
+                }
+
+                if (col == Board.SIZE) {
+                    return;
+                }
+
+                int allowed = graph.letters(node) & crossCheck[row][col];
+
+                for (; allowed != 0; allowed &= allowed - 1) {
+
+                    int letter = Integer.numberOfTrailingZeros(allowed);
+                    int next = graph.child(node, letter);
+
+                    if (counts[letter] > 0) {
+                        counts[letter]--;
+                        word[length++] = (char) ('a' + letter);
+                        extendRight(next, col + 1);
+                        length--;
+                        counts[letter]++;
+                    }
+
+                    if (blanks > 0) {
+                        blanks--;
+                        word[length++] = (char) ('A' + letter);
+                        extendRight(next, col + 1);
+                        length--;
+                        blanks++;
+                    }
+                }
+            } else {
+
+                char tile = tiles[row][col];
+                int next = graph.child(node, Character.toLowerCase(tile) - 'a');
+
+                if (next != WordGraph.NONE) {
+                    word[length++] = tile;
+                    extendRight(next, col + 1);
+                    length--;
+                }
+            }
+        }
+
+
+        /**
+         Score the word built so far, which ends just before column end, and add its move.
+         */
+        private void record(int end) {
+
+            if (length < 2) {
+                return; // a single tile makes no word along the row
+            }
+
+            int wordScore = 0;
+            int multiplier = 1;
+            int crossTotal = 0;
+            int played = 0;
+            boolean crossWord = false;
+
+            for (int col = start; col < end; col++) {
+
+                int letterScore = tileScore(word[col - start]);
+
+                if (tiles[row][col] != Board.EMPTY) {
+                    wordScore += letterScore;
+                    continue;
+                }
+
+                // a tile from the rack: premium squares count, and so does the word it makes across the row
+                letterScore *= letterMultiplier[row][col];
+                wordScore += letterScore;
+                multiplier *= wordMultiplier[row][col];
+                played++;
+
+                if (crossScore[row][col] != NO_CROSS_WORD) {
+                    crossTotal += (crossScore[row][col] + letterScore) * wordMultiplier[row][col];
+                    crossWord = true;
+                }
+            }
+
+            // a single tile that makes words both ways was already found as a move across
+            if (!across && played == 1 && crossWord) {
+                return;
+            }
+
+            int score = wordScore * multiplier + crossTotal + (played == BINGO_TILES ? BINGO_BONUS : 0);
+            String w = new String(word, 0, length);
+
+            result.add(across ? new Move(row, start, true, w, score) : new Move(start, row, false, w, score));
+            found++;
+        }
+
+
+        /**
+         Get the score of a tile on the board or from the rack; blank tiles, written in upper case, score zero.
+         */
+        private int tileScore(char tile) {
+            return Character.isUpperCase(tile) ? 0 : st.getScore(tile);
+        }
+    }
+}
@@ -0,0 +1,280 @@
+/**
+ * MoveGeneratorTester Class
+ * Test the moves MoveGenerator finds against placing the words by brute force: every word of
+ * the dictionary is tried on every run of squares of every row and column, with every way the
+ * rack can cover its empty squares (letter tiles or blanks), and kept if it is a legal move.
+ * A legal move makes a word of at least two letters along its line, has no tile just before or
+ * after it, connects to the tiles on the board (or covers the center square of an empty board),
+ * and makes only words across it. Its score is worked out again from the premium squares, the
+ * cross words and the bingo bonus.
+ * The boards have cross words, premium squares, blanks on the board and the rack, and a bingo.
+ * Every test prints its number of mismatches, which should be 0.
+ */
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.TreeSet;
+
+public class MoveGeneratorTester {
+
+    private static final List<String> WORDS = Arrays.asList(
+            "at", "ta", "an", "na", "ax", "ex", "xi", "re", "er", "ar", "ae", "ea", "te", "et", "es", "st",
+            "in", "is", "it", "ti", "ne", "en", "no", "on", "to", "so",
+            "art", "rat", "tar", "eat", "tea", "ate", "sat", "set", "ten", "net", "ant", "tan", "axe", "tax",
+            "sit", "its", "tin", "nit", "rest", "rets", "star", "rats", "arts", "tars", "seat", "east", "eats",
+            "teas", "rate", "tear", "care", "race", "acre", "scar", "cars", "arcs", "tins", "nits", "stir",
+            "rain", "rani", "stain", "satin", "saint", "train", "trains", "strain", "retain", "retains",
+            "stainer", "nastier", "taxes", "exit", "exits", "next");
+
+    public static void main(String args[]) {
+
+        AnagramDictionary dictionary = new AnagramDictionary(new TreeSet<String>(WORDS), new ScoreTable());
+        MoveGenerator generator = new MoveGenerator(dictionary);
+
+        Board empty = new Board();
+
+        // a word across the center, a word down through it, and words near premium squares
+        Board middle = new Board();
+        middle.place(new Move(7, 5, true, "care", 0));
+        middle.place(new Move(5, 8, false, "stE", 0));
+        middle.place(new Move(9, 3, true, "nit", 0));
+
+        // tiles in a corner, with triple word squares next to them and a blank on the board
+        Board corner = new Board();
+        corner.place(new Move(0, 1, true, "tAx", 0));
+        corner.place(new Move(1, 0, false, "it", 0));
+        corner.place(new Move(13, 14, false, "at", 0));
+
+        test("Empty board, aeinrst", generator, empty, "aeinrst");
+        test("Empty board, tax?", generator, empty, "tax?");
+        test("Middle board, rastin", generator, middle, "rastin");
+        test("Middle board, te??", generator, middle, "te??");
+        test("Corner board, aetxsni", generator, corner, "aetxsni");
+        test("Corner board, ser?", generator, corner, "ser?");
+    }
+
+
+    /**
+     * Print the number of moves a rack has on a board and how many of them differ between the
+     * generator and the brute force.
+     */
+    private static void test(String name, MoveGenerator generator, Board board, String rack) {
+
+        TreeSet<String> generated = new TreeSet<String>();
+
+        for (Move move : generator.generate(board, rack)) {
+            generated.add(move.getScore() + ": " + move);
+        }
+
+        TreeSet<String> placed = bruteForce(board, rack);
+
+        TreeSet<String> missing = new TreeSet<String>(placed);
+        missing.removeAll(generated);
+        TreeSet<String> extra = new TreeSet<String>(generated);
+        extra.removeAll(placed);
+
+        System.out.println(name + ": " + placed.size() + " moves, mismatches [exp:0]: "
+                + (missing.size() + extra.size()));
+
+        for (String move : missing) {
+            System.out.println("    not generated: " + move);
+        }
+
+        for (String move : extra) {
+            System.out.println("    not legal or wrong score: " + move);
+        }
+    }
+
+
+    /**
+     * Find every legal move of a rack on a board by trying every word on every run of squares.
+     * Returns a line "score: coordinate word" per move.
+     */
+    private static TreeSet<String> bruteForce(Board board, String rack) {
+
+        HashSet<String> words = new HashSet<String>(WORDS);
+        TreeSet<String> moves = new TreeSet<String>();
+
+        int[] counts = new int[LetterSignature.ALPHABET_SIZE];
+        int blanks = 0;
+
+        for (int i = 0; i < rack.length(); i++) {
+            if (Rack.isBlank(rack.charAt(i))) {
+                blanks++;
+            } else {
+                counts[rack.charAt(i) - 'a']++;
+            }
+        }
+
+        for (int across = 1; across >= 0; across--) {
+
+            // on an empty board a move down is a move across turned over
+            if (across == 0 && board.isEmpty()) {
+                break;
+            }
+
+            for (int line = 0; line < Board.SIZE; line++) {
+                for (int first = 0; first < Board.SIZE; first++) {
+                    for (String word : words) {
+
+                        int last = first + word.length() - 1;
+
+                        if (last >= Board.SIZE || isTile(board, across == 1, line, first - 1)
+                                || isTile(board, across == 1, line, last + 1)) {
+                            continue;
+                        }
+
+                        char[] played = new char[word.length()];
+                        cover(board, across == 1, line, first, word, 0, played, counts, blanks, words, moves);
+                    }
+                }
+            }
+        }
+
+        return moves;
+    }
+
+
+    /**
+     * Cover the squares of a word from index i on, with the tiles on the board or from the rack,
+     * and add the move once every square is covered, if it is legal.
+     */
+    private static void cover(Board board, boolean across, int line, int first, String word, int i,
+                              char[] played, int[] counts, int blanks, HashSet<String> words,
+                              TreeSet<String> moves) {
+
+        if (i == word.length()) {
+            addIfLegal(board, across, line, first, played, words, moves);
+            return;
+        }
+
+        char tile = tileAt(board, across, line, first + i);
+        char letter = word.charAt(i);
+
+        if (tile != Board.EMPTY) {
+            if (Character.toLowerCase(tile) == letter) {
+                played[i] = tile;
+                cover(board, across, line, first, word, i + 1, played, counts, blanks, words, moves);
+            }
+            return;
+        }
+
+        if (counts[letter - 'a'] > 0) {
+            counts[letter - 'a']--;
+            played[i] = letter;
+            cover(board, across, line, first, word, i + 1, played, counts, blanks, words, moves);
+            counts[letter - 'a']++;
+        }
+
+        if (blanks > 0) {
+            played[i] = Character.toUpperCase(letter);
+            cover(board, across, line, first, word, i + 1, played, counts, blanks - 1, words, moves);
+        }
+    }
+
+
+    /**
+     * Add a placement of a word if it plays a tile, connects to the board and makes only words
+     * across it, with its score.
+     */
+    private static void addIfLegal(Board board, boolean across, int line, int first, char[] word,
+                                   HashSet<String> words, TreeSet<String> moves) {
+
+        int tilesPlayed = 0;
+        boolean connected = false;
+        boolean crossWord = false;
+        int wordScore = 0;
+        int multiplier = 1;
+        int crossTotal = 0;
+
+        for (int i = 0; i < word.length; i++) {
+
+            int col = first + i;
+            int row = across ? line : col;
+            int column = across ? col : line;
+            int letterScore = score(word[i]);
+
+            if (tileAt(board, across, line, col) != Board.EMPTY) {
+                wordScore += letterScore;
+                connected = true;
+                continue;
+            }
+
+            tilesPlayed++;
+            letterScore *= board.letterMultiplier(row, column);
+            wordScore += letterScore;
+            multiplier *= board.wordMultiplier(row, column);
+
+            if (board.isEmpty() && row == Board.SIZE / 2 && column == Board.SIZE / 2) {
+                connected = true;
+            }
+
+            // the word across the line through the tile
+            StringBuilder cross = new StringBuilder();
+            int crossTiles = 0;
+            int before = line;
+
+            while (isTile(board, across, before - 1, col)) {
+                before--;
+            }
+
+            for (int j = before; j == line || isTile(board, across, j, col); j++) {
+                if (j == line) {
+                    cross.append(word[i]);
+                } else {
+                    cross.append(tileAt(board, across, j, col));
+                    crossTiles += score(tileAt(board, across, j, col));
+                }
+            }
+
+            if (cross.length() > 1) {
+
+                if (!words.contains(cross.toString().toLowerCase())) {
+                    return;
+                }
+
+                connected = true;
+                crossWord = true;
+                crossTotal += (crossTiles + letterScore) * board.wordMultiplier(row, column);
+            }
+        }
+
+        // a single tile that makes words both ways is counted as a move across
+        if (tilesPlayed == 0 || !connected || (!across && tilesPlayed == 1 && crossWord)) {
+            return;
+        }
+
+        int score = wordScore * multiplier + crossTotal
+                + (tilesPlayed == MoveGenerator.BINGO_TILES ? MoveGenerator.BINGO_BONUS : 0);
+        Move move = across ? new Move(line, first, true, new String(word), score)
+                           : new Move(first, line, false, new String(word), score);
+
+        moves.add(score + ": " + move);
+    }
+
+
+    /**
+     * Returns the tile on a square of a line, or EMPTY; a move down reads the board transposed.
+     */
+    private static char tileAt(Board board, boolean across, int line, int col) {
+        return across ? board.get(line, col) : board.get(col, line);
+    }
+
+
+    /**
+     * Returns true iff a square of a line is on the board and has a tile.
+     */
+    private static boolean isTile(Board board, boolean across, int line, int col) {
+        return line >= 0 && line < Board.SIZE && col >= 0 && col < Board.SIZE
+                && tileAt(board, across, line, col) != Board.EMPTY;
+    }
+
+
+    /**
+     * Returns the score of a tile; blanks, written in upper case, score zero.
+     */
+    private static int score(char tile) {
+        return Character.isUpperCase(tile) ? 0 : new ScoreTable().getScore(tile);
+    }
+}
@@ -0,0 +1,262 @@
+/**
+ Records what the rack queries of a RackSolver cost: per query, the subsets of the rack the
+ search visited (nodes of the signature trie, or subsets of the odometer of Rack for a rack the
+ trie cannot take), the dictionary probes among them (subsets looked up in the dictionary), the
+ hits (probes that found words) and the words found, and the time spent searching (enumerating
+ the subsets, looking them up and scoring the words, which the search does in one pass), ranking
+ (sorting the words, or taking the best ones out of the heap that kept them during the search)
+ and printing (formatting the words for output).
+ Every measure goes to a Histogram, so recording is a few atomic increments with no lock, and
+ queries on many threads can share the metrics. Queries answered from the result cache are only
+ counted.
+ The metrics can be registered as an MXBean and printed as a summary line every so often, each
+ line covering the queries since the last one. A solver without metrics records nothing: its
+ only cost is a null check per query.
+ */
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+public class QueryMetrics implements QueryMetricsMXBean {
+
+    public static final String OBJECT_NAME = "WordFinder:type=QueryMetrics";
+    // the name the metrics are registered under
+
+    // the histograms, by these indexes
+    private static final int SUBSETS = 0;
+    private static final int PROBES = 1;
+    private static final int HITS = 2;
+    private static final int RESULTS = 3;
+    private static final int SEARCH = 4;
+    private static final int RANK = 5;
+    private static final int PRINT = 6;
+    private static final int NUM_HISTOGRAMS = 7;
+
+    private Histogram[] histograms = new Histogram[NUM_HISTOGRAMS];
+    private LongAdder queries = new LongAdder();
+    private LongAdder cacheHits = new LongAdder();
+
+
+    /**
+     Creates metrics with nothing recorded.
+     */
+    public QueryMetrics() {
+
+        for (int i = 0; i < NUM_HISTOGRAMS; i++) {
+            histograms[i] = new Histogram();
+        }
+    }
+
+
+    /**
+     Start recording a query that is not answered from the result cache.
+
+     @return  the record of the query, to pass to the search and to finish()
+     */
+    public Query start() {
+        queries.increment();
+        return new Query();
+    }
+
+
+    /**
+     Count a query that was answered from the result cache.
+     */
+    public void cacheHit() {
+        queries.increment();
+        cacheHits.increment();
+    }
+
+
+    /**
+     Record a query once its words are ranked.
+
+     @param query  the record of the query, from start(), with searched() called
+     @param results  the number of words found
+     */
+    public void finish(Query query, int results) {
+
+        histograms[SUBSETS].record(query.subsets);
+        histograms[PROBES].record(query.probes);
+        histograms[HITS].record(query.hits);
+        histograms[RESULTS].record(results);
+        histograms[SEARCH].record(query.searched - query.start);
+        histograms[RANK].record(System.nanoTime() - query.searched);
+    }
+
+
+    /**
+     Record the time taken to print the words of a query.
+
+     @param nanos  the time in nanoseconds
+     */
+    public void printed(long nanos) {
+        histograms[PRINT].record(nanos);
+    }
+
+
+    /**
+     Register the metrics with the platform MBean server under OBJECT_NAME.
+
+     @throws JMException  if they cannot be registered, e.g. because other metrics are
+     */
+    public void register() throws JMException {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, new ObjectName(OBJECT_NAME));
+    }
+
+
+    /**
+     Print a summary line of the queries since the last line to a stream every intervalMillis
+     milliseconds, on a daemon thread.
+
+     @param intervalMillis  the time between two lines
+     @param log  the stream the lines are printed on
+     */
+    public void report(long intervalMillis, PrintStream log) {
+
+        ScheduledExecutorService reporter = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "metrics reporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // the totals at the last line: the histograms, then the queries and the cache hits
+        Histogram[] last = new Histogram[NUM_HISTOGRAMS];
+        long[] lastCounts = new long[2];
+
+        for (int i = 0; i < NUM_HISTOGRAMS; i++) {
+            last[i] = new Histogram();
+        }
+
+        reporter.scheduleAtFixedRate(() -> {
+
+            Histogram[] interval = new Histogram[NUM_HISTOGRAMS];
+
+            for (int i = 0; i < NUM_HISTOGRAMS; i++) {
+                Histogram now = histograms[i].snapshot();
+                interval[i] = now.since(last[i]);
+                last[i] = now;
+            }
+
+            long queriesNow = queries.sum();
+            long cacheHitsNow = cacheHits.sum();
+
+            log.println(summary(interval, queriesNow - lastCounts[0], cacheHitsNow - lastCounts[1],
+                    intervalMillis / 1000.0));
+
+            lastCounts[0] = queriesNow;
+            lastCounts[1] = cacheHitsNow;
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+
+    @Override public long getQueries() { return queries.sum(); }
+    @Override public long getCacheHits() { return cacheHits.sum(); }
+
+    @Override public double getMeanSubsets() { return histograms[SUBSETS].mean(); }
+    @Override public double getMeanProbes() { return histograms[PROBES].mean(); }
+    @Override public double getMeanHits() { return histograms[HITS].mean(); }
+    @Override public double getMeanResults() { return histograms[RESULTS].mean(); }
+
+    @Override public double getSearchMillis50() { return histograms[SEARCH].percentile(50) / 1e6; }
+    @Override public double getSearchMillis99() { return histograms[SEARCH].percentile(99) / 1e6; }
+    @Override public double getSearchMillisMax() { return histograms[SEARCH].max() / 1e6; }
+
+    @Override public double getRankMillis50() { return histograms[RANK].percentile(50) / 1e6; }
+    @Override public double getRankMillis99() { return histograms[RANK].percentile(99) / 1e6; }
+    @Override public double getRankMillisMax() { return histograms[RANK].max() / 1e6; }
+
+    @Override public double getPrintMillis50() { return histograms[PRINT].percentile(50) / 1e6; }
+    @Override public double getPrintMillis99() { return histograms[PRINT].percentile(99) / 1e6; }
+    @Override public double getPrintMillisMax() { return histograms[PRINT].max() / 1e6; }
+
+    @Override public String getSummary() { return toString(); }
+
+
+    /**
+     Returns a summary of all the queries so far, e.g. "queries: 100 (10 cached); per query:
+     50.2 subsets, 20.1 probes, 8.0 hits, 30.5 words; ms p50/p99/max: search 0.071/1.203/5.100,
+     rank ..., print ...".
+     */
+    @Override
+    public String toString() {
+        return summary(histograms, queries.sum(), cacheHits.sum(), 0);
+    }
+
+
+    /**
+     Get a summary line of some queries.
+
+     @param h  the histograms of the queries
+     @param numQueries  the number of queries
+     @param numCacheHits  the number of them answered from the cache
+     @param seconds  the time they took, for the rate, or 0 to leave it out
+
+     @return  the line
+     */
+    private static String summary(Histogram[] h, long numQueries, long numCacheHits, double seconds) {
+
+        StringBuilder s = new StringBuilder();
+
+        s.append("queries: ").append(numQueries).append(" (").append(numCacheHits).append(" cached)");
+
+        if (seconds > 0) {
+            s.append(String.format(", %.1f/s", numQueries / seconds));
+        }
+
+        s.append(String.format("; per query: %.1f subsets, %.1f probes, %.1f hits, %.1f words",
+                h[SUBSETS].mean(), h[PROBES].mean(), h[HITS].mean(), h[RESULTS].mean()));
+        s.append("; ms p50/p99/max:");
+        s.append(" search ").append(times(h[SEARCH]));
+        s.append(", rank ").append(times(h[RANK]));
+        s.append(", print ").append(times(h[PRINT]));
+
+        return s.toString();
+    }
+
+
+    private static String times(Histogram h) {
+        return String.format("%.3f/%.3f/%.3f", h.percentile(50) / 1e6, h.percentile(99) / 1e6, h.max() / 1e6);
+    }
+
+
+    /**
+     The counts and times of one query as it runs. It is only used by the thread of the query.
+     */
+    public static class Query {
+
+        private int subsets;
+        private int probes;
+        private int hits;
+
+        private long start = System.nanoTime();
+        private long searched;
+
+
+        /**
+         Add the counts of a search.
+
+         @param subsets  the subsets of the rack visited
+         @param probes  the subsets looked up in the dictionary
+         @param hits  the lookups that found words
+         */
+        public void add(int subsets, int probes, int hits) {
+            this.subsets += subsets;
+            this.probes += probes;
+            this.hits += hits;
+        }
+
+
+        /**
+         Mark the end of the search, and the start of ranking.
+         */
+        public void searched() {
+            searched = System.nanoTime();
+        }
+    }
+}
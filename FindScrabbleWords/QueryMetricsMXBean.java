@@ -0,0 +1,29 @@
+/**
+ The view of QueryMetrics that is registered with the platform MBean server, so the metrics of a
+ running WordFinder can be watched with jconsole or any JMX client. Everything is counted from
+ the start; times are in milliseconds.
+ */
+public interface QueryMetricsMXBean {
+
+    long getQueries();
+    long getCacheHits();
+
+    double getMeanSubsets();
+    double getMeanProbes();
+    double getMeanHits();
+    double getMeanResults();
+
+    double getSearchMillis50();
+    double getSearchMillis99();
+    double getSearchMillisMax();
+
+    double getRankMillis50();
+    double getRankMillis99();
+    double getRankMillisMax();
+
+    double getPrintMillis50();
+    double getPrintMillis99();
+    double getPrintMillisMax();
+
+    String getSummary();
+}
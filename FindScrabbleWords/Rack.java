@@ -1,94 +1,209 @@
 /**
  A Rack of Scrabble tiles
+ A blank tile is typed as '?' or '_' and can stand for any letter.
  */
 import java.util.ArrayList;
-import java.util.Map;
-import java.util.TreeMap;
+import java.util.Arrays;
+import java.util.function.Consumer;
 
 public class Rack {
 
+    public static final char BLANK = '?';
+    public static final char OTHER_BLANK = '_';
+    // the two ways a blank tile can be typed on a rack
+
+
     /**
-     Wrapper method of the private allSubsets function.
-     Create unique and mult for the allSubsets function which has three arguments.
-     Unique and mult describe a multiset such that mult[i] is the multiplicity of
-     the char unique.charAt(i).
+     Returns true iff the char c is a blank tile.
 
-     @param s  a rack users type in to process
+     @param c  the tile to check
 
-     @return all subsets of the indicated multiset
+     @return  true iff c is BLANK or OTHER_BLANK
      */
-    public ArrayList<String> allSubsets(String s) {
+    public static boolean isBlank(char c) {
+        return c == BLANK || c == OTHER_BLANK;
+    }
 
-        String unique = "";
 
-        // use a TreeMap to find unique letter of string s
-        Map<Character, Integer> temp = new TreeMap<Character, Integer>();
+    /**
+     Remove the blank tiles from a rack.
 
+     @param s  a rack users type in to process
 
-        for (int i = 0; i < s.length(); i++) {
+     @return  the tiles of s that are not blanks, in the same order
+     */
+    public static String removeBlanks(String s) {
 
-            char c = s.charAt(i);
+        StringBuilder letters = new StringBuilder(s.length());
 
-            if (temp.containsKey(c)) {
-                temp.put(c, temp.get(c) + 1);
-            } else {
-                temp.put(c, 1);
+        for (int i = 0; i < s.length(); i++) {
+            if (!isBlank(s.charAt(i))) {
+                letters.append(s.charAt(i));
             }
         }
 
-        // string s has temp.size() unique letters
-        int[] mult = new int[temp.size()];
-        int index = 0;
+        return letters.toString();
+    }
+
 
-        // build the string unique and mult[]
-        for (Map.Entry<Character, Integer> entry : temp.entrySet()) {
-            unique = unique + entry.getKey();
-            mult[index++] = entry.getValue();
-        }
+    /**
+     Find all subsets of the multiset of letters in string s.
+     The subsets are in the same order forEachSubset visits them.
 
-        // pass parameters to allSubsets function which has three arguments
-        // start from position 0
-        return allSubsets(unique, mult, 0);
+     @param s  a rack users type in to process
+
+     @return all subsets of the indicated multiset
+     */
+    public ArrayList<String> allSubsets(String s) {
+
+        ArrayList<String> allCombos = new ArrayList<String>();
+        forEachSubset(s, subset -> allCombos.add(subset.toString()));
+
+        return allCombos;
     }
 
     /**
-     Finds all subsets of the multiset starting at position k in unique and mult.
-     unique and mult describe a multiset such that mult[i] is the multiplicity of the char
-     unique.charAt(i).
-     PRE: mult.length must be at least as big as unique.length()
-     0 <= k <= unique.length()
+     Visit every subset of the multiset of letters in string s without building a list or a
+     String per subset.
+     The multiset is described by unique and mult, such that mult[i] is the multiplicity of the
+     char unique[i]. A subset is a vector of counts n[i], 0 <= n[i] <= mult[i], that is stepped
+     like an odometer: the last digit turns fastest, and when a digit passes mult[i] it goes back
+     to 0 and carries into the digit before it. For every vector the visitor gets the letters
+     of the subset: n[0] copies of unique[0], then n[1] copies of unique[1], etc.
+     The visitor must not keep the CharSequence, which is reused for the next subset.
 
-     @param unique a string of unique letters
-     @param mult the multiplicity of each letter from unique.
-     @param k the smallest index of unique and mult to consider.
+     @param s  a rack users type in to process
+     @param visitor  called once for every subset of s, starting with the empty subset
+     */
+    public void forEachSubset(String s, Consumer<CharSequence> visitor) {
+        forEachSubset(s, null, WordFilter.NONE, visitor);
+    }
 
-     @return all subsets of the indicated multiset
-     @author Claire Bono
+
+    /**
+     Visit the subsets of the multiset of letters in string s that may have anagrams in a
+     dictionary, in the same order as forEachSubset(String, Consumer) does.
+     The letter-presence masks of the dictionary prune the odometer: when a digit is turned, the
+     letters of the digits up to it must be part of some word, or else no setting of the later
+     digits can make a word and they are all skipped at once. A subset is only visited if it
+     passes the dictionary's check for a whole word, so most of the subsets that cannot have
+     anagrams are never hashed.
+     A filter prunes the odometer the same way: the subsets that are too long or that can no
+     longer get a required letter (the later digits only have letters that sort after it) are
+     skipped, and a subset is only visited if it has the length and the letters the filter asks
+     for. Scores are not checked.
+
+     @param s  a rack users type in to process
+     @param dictionary  the dictionary the subsets are looked up in, or null to visit every subset
+     @param filter  the words the subsets are for
+     @param visitor  called once for every subset of s that may have anagrams in dictionary
      */
-    private static ArrayList<String> allSubsets(String unique, int[] mult, int k) {
-        ArrayList<String> allCombos = new ArrayList<>();
+    public void forEachSubset(String s, AnagramDictionary dictionary, WordFilter filter,
+                              Consumer<CharSequence> visitor) {
 
-        if (k == unique.length()) {  // multiset is empty
-            allCombos.add("");
-            return allCombos;
+        // sort the letters so that equal letters are next to each other
+        char[] letters = s.toCharArray();
+        Arrays.sort(letters);
+
+        // build unique and mult from the runs of equal letters
+        char[] unique = new char[letters.length];
+        int[] mult = new int[letters.length];
+        int numUnique = 0;
+
+        for (int i = 0; i < letters.length; i++) {
+            if (i == 0 || letters[i] != letters[i - 1]) {
+                unique[numUnique++] = letters[i];
+            }
+            mult[numUnique - 1]++;
         }
 
-        // get all subsets of the multiset without the first unique char
-        ArrayList<String> restCombos = allSubsets(unique, mult, k+1);
+        int[] n = new int[numUnique]; // the odometer, starting at the empty subset
+        StringBuilder subset = new StringBuilder(letters.length);
+
+        // the letters of the digits 0 .. i: their number, their letter-presence mask, and whether
+        // they cannot be represented by a LetterSignature; they are all empty while the odometer is at 0
+        int[] length = new int[numUnique];
+        int[] mask = new int[numUnique];
+        boolean[] odd = new boolean[numUnique];
+        int last = numUnique - 1;
+
+        while (true) {
+
+            int subsetMask = numUnique == 0 ? 0 : mask[last];
+            int subsetLength = numUnique == 0 ? 0 : length[last];
+
+            boolean mayBeWord = filter.acceptsLetters(subsetMask, subsetLength)
+                    && (dictionary == null || dictionary.mayBeWord(subsetMask, numUnique > 0 && odd[last], subsetLength));
+
+            if (mayBeWord) {
 
-        // prepend all possible numbers of the first char (i.e., the one at position k)
-        // to the front of each string in restCombos.  Suppose that char is 'a'...
+                subset.setLength(0);
 
-        String firstPart = "";          // in outer loop firstPart takes on the values: "", "a", "aa", ...
-        for (int n = 0; n <= mult[k]; n++) {
-            for (int i = 0; i < restCombos.size(); i++) {  // for each of the subsets
-                // we found in the recursive call
-                // create and add a new string with n 'a's in front of that subset
-                allCombos.add(firstPart + restCombos.get(i));
+                for (int i = 0; i < numUnique; i++) {
+                    for (int j = 0; j < n[i]; j++) {
+                        subset.append(unique[i]);
+                    }
+                }
+
+                visitor.accept(subset);
+            }
+
+            // turn the odometer: reset the digits at their multiplicity and carry into the digit before
+            int k = numUnique - 1;
+
+            while (true) {
+
+                while (k >= 0 && n[k] == mult[k]) {
+                    n[k] = 0;
+                    k--;
+                }
+
+                if (k < 0) {
+                    return; // every digit rolled over, so all subsets have been visited
+                }
+
+                n[k]++;
+
+                length[k] = (k > 0 ? length[k - 1] : 0) + n[k];
+                mask[k] = (k > 0 ? mask[k - 1] : 0) | (LetterSignature.isLetter(unique[k]) ? 1 << (unique[k] - 'a') : 0);
+                odd[k] = (k > 0 && odd[k - 1]) || !LetterSignature.isLetter(unique[k]) || n[k] > LetterSignature.MAX_COUNT;
+
+                // the required letters that sort before unique[k] and are not among the letters so far
+                int lost = filter.getRequiredMask() & ~mask[k] & lettersBefore(unique[k]);
+
+                if (length[k] <= filter.getMaxLength() && lost == 0
+                        && (dictionary == null || dictionary.mayBeInWord(mask[k], odd[k], length[k]))) {
+                    break;
+                }
+
+                // the letters so far are in no word that passes, and neither are they with more of
+                // unique[k]: skip every setting of the later digits and roll digit k over
+                n[k] = mult[k];
+            }
+
+            // the later digits are back at 0, so they add no letters
+            for (int i = k + 1; i < numUnique; i++) {
+                length[i] = length[k];
+                mask[i] = mask[k];
+                odd[i] = odd[k];
             }
-            firstPart += unique.charAt(k);  // append another instance of 'a' to the first part
         }
+    }
 
-        return allCombos;
+
+    /**
+     Get the mask of the letters 'a' to 'z' that sort before a char.
+
+     @param c  the char
+
+     @return  a mask with bit i set iff 'a' + i < c
+     */
+    private static int lettersBefore(char c) {
+
+        if (c <= 'a') {
+            return 0;
+        }
+
+        return c > 'z' ? LetterSignature.ALL_LETTERS : (1 << (c - 'a')) - 1;
     }
 }
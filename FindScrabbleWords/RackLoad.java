@@ -0,0 +1,211 @@
+/**
+ A load generator for RackServer: it sends racks to a server on this machine over several
+ connections at once, pipelining a number of requests on each, and prints the number of racks
+ answered per second and percentiles of the time from sending a rack to receiving the end of its
+ response. The racks are read from a file, one per line, and sent over and over in turn.
+ Every connection runs on its own thread with blocking sockets, so the client does not depend on
+ the server's way of doing I/O.
+
+ Note: common format is as following.
+ java RackLoad [-connections c] [-pipeline d] [-requests n] port rackFile
+ where c connections (default 4) each keep up to d requests in flight (default 16), for n
+ requests in all (default 100000).
+ */
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class RackLoad {
+
+    public static void main(String[] args) {
+
+        int connections = 4;
+        int pipeline = 16;
+        int requests = 100000;
+        int port = -1;
+        String rackFile = null;
+
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-connections") && i + 1 < args.length) {
+                connections = Math.max(1, Integer.parseInt(args[++i]));
+            }
+            else if (args[i].equals("-pipeline") && i + 1 < args.length) {
+                pipeline = Math.max(1, Integer.parseInt(args[++i]));
+            }
+            else if (args[i].equals("-requests") && i + 1 < args.length) {
+                requests = Math.max(1, Integer.parseInt(args[++i]));
+            }
+            else if (port < 0) {
+                port = Integer.parseInt(args[i]);
+            }
+            else {
+                rackFile = args[i];
+            }
+        }
+
+        if (port < 0 || rackFile == null) {
+            System.out.println("Usage: java RackLoad [-connections c] [-pipeline d] [-requests n] port rackFile");
+            return;
+        }
+
+        List<String> racks = new ArrayList<String>();
+
+        try
+        {
+            for (String line : Files.readAllLines(Paths.get(rackFile), StandardCharsets.UTF_8)) {
+                if (!line.trim().isEmpty() && !line.trim().equals(".")) {
+                    racks.add(line.trim());
+                }
+            }
+        }
+
+        catch(IOException exception)
+        {
+            System.out.println("Cannot read racks: " + exception.getMessage());
+            return;
+        }
+
+        if (racks.isEmpty()) {
+            System.out.println("No racks in " + rackFile);
+            return;
+        }
+
+        // share the requests out between the connections, each starting at a different rack
+        Client[] clients = new Client[connections];
+        Thread[] threads = new Thread[connections];
+
+        for (int i = 0; i < connections; i++) {
+            int count = requests / connections + (i < requests % connections ? 1 : 0);
+            clients[i] = new Client(port, racks, i * racks.size() / connections, count, pipeline);
+            threads[i] = new Thread(clients[i], "client " + i);
+        }
+
+        long start = System.nanoTime();
+
+        for (Thread thread : threads) {
+            thread.start();
+        }
+
+        try {
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        long elapsed = System.nanoTime() - start;
+        long[] latencies = new long[requests];
+        int answered = 0;
+
+        for (Client client : clients) {
+
+            if (client.error != null) {
+                System.out.println("Connection failed: " + client.error.getMessage());
+                return;
+            }
+
+            System.arraycopy(client.latencies, 0, latencies, answered, client.latencies.length);
+            answered += client.latencies.length;
+        }
+
+        Arrays.sort(latencies);
+
+        System.out.printf("Answered %d racks on %d connections, %d in flight each, in %.3f s: %.1f racks/s%n",
+                requests, connections, pipeline, elapsed / 1e9, requests / (elapsed / 1e9));
+        System.out.printf("Latency (ms): p50 %.3f  p90 %.3f  p99 %.3f  p99.9 %.3f  max %.3f%n",
+                BatchSolver.percentile(latencies, 50) / 1e6, BatchSolver.percentile(latencies, 90) / 1e6,
+                BatchSolver.percentile(latencies, 99) / 1e6, BatchSolver.percentile(latencies, 99.9) / 1e6,
+                latencies[latencies.length - 1] / 1e6);
+    }
+
+
+    /**
+     One connection: it keeps up to pipeline requests in flight until it has sent count of them,
+     and records the latency of each.
+     */
+    private static class Client implements Runnable {
+
+        private int port;
+        private List<String> racks;
+        private int first;
+        private int pipeline;
+
+        private long[] latencies;
+        private IOException error;
+
+
+        Client(int port, List<String> racks, int first, int count, int pipeline) {
+            this.port = port;
+            this.racks = racks;
+            this.first = first;
+            this.pipeline = pipeline;
+            latencies = new long[count];
+        }
+
+
+        @Override
+        public void run() {
+
+            try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+
+                socket.setTcpNoDelay(true);
+
+                OutputStream out = new BufferedOutputStream(socket.getOutputStream());
+                BufferedReader in = new BufferedReader(
+                        new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+
+                // sentAt[i % pipeline] is when request i was sent
+                long[] sentAt = new long[pipeline];
+                int sent = 0;
+                int received = 0;
+
+                while (received < latencies.length) {
+
+                    // fill the pipeline
+                    while (sent < latencies.length && sent - received < pipeline) {
+                        String rack = racks.get((first + sent) % racks.size());
+                        out.write((rack + "\n").getBytes(StandardCharsets.UTF_8));
+                        sentAt[sent % pipeline] = System.nanoTime();
+                        sent++;
+                    }
+
+                    out.flush();
+
+                    // a response ends with an empty line
+                    String line;
+
+                    while ((line = in.readLine()) != null && !line.isEmpty()) {
+                        // skip the lines of the report
+                    }
+
+                    if (line == null) {
+                        throw new IOException("The server closed the connection");
+                    }
+
+                    latencies[received] = System.nanoTime() - sentAt[received % pipeline];
+                    received++;
+                }
+
+                out.write(".\n".getBytes(StandardCharsets.UTF_8));
+                out.flush();
+            }
+
+            catch(IOException exception)
+            {
+                error = exception;
+            }
+        }
+    }
+}
@@ -0,0 +1,440 @@
+/**
+ Serves rack queries over a TCP socket on the loopback interface, so one process loads the
+ dictionary once and any number of clients share it.
+ A request is a line with a rack, as typed to WordFinder; the response is the report WordFinder
+ prints for it followed by an empty line (a report has no empty line of its own). A line with "."
+ asks the server to close the connection once the responses to the requests before it are sent.
+ Blank lines are skipped.
+ Clients may pipeline requests: send many without waiting, and the responses come back in the
+ order of the requests on each connection. One thread runs a selector that reads requests and
+ writes responses for all the connections; racks are solved on a pool of worker threads, so the
+ responses of a connection may be ready out of order, and each connection keeps its requests in
+ a queue and only writes the responses at its head that are ready. A connection with too many
+ requests in flight is not read from until some of them are answered.
+ Every rack is solved by the solver of the supplier at the time, e.g. the current version of a
+ LiveDictionary.
+ */
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+public class RackServer implements AutoCloseable {
+
+    private static final int MAX_LINE = 4096;
+    // the longest request line; a connection sending a longer one is closed
+
+    private static final int MAX_IN_FLIGHT = 1024;
+    // requests of a connection that may be waiting for their responses to be written before it is
+    // not read from, so a client must read responses while it sends requests
+
+    private static final int MAX_GATHER = 64;
+    // responses written by one system call at most
+
+    private Supplier<RackSolver> solvers;
+    private int limit;
+    private WordFilter filter;
+    private ForkJoinPool pool;
+
+    private Selector selector;
+    private ServerSocketChannel server;
+
+    private ConcurrentLinkedQueue<Connection> ready = new ConcurrentLinkedQueue<Connection>();
+    // connections with responses that have become ready since the selector last looked at them
+
+
+    /**
+     Creates a server listening on a port of the loopback interface. It does not accept
+     connections until run() is called.
+
+     @param solvers  the supplier of the rack solver of every request
+     @param threads  number of worker threads, at least 1
+     @param limit  the number of best words to list per rack, or 0 to list them all
+     @param filter  the words to find
+     @param port  the port to listen on, or 0 for any free port
+
+     @throws IOException  if the port cannot be listened on
+     */
+    public RackServer(Supplier<RackSolver> solvers, int threads, int limit, WordFilter filter, int port)
+            throws IOException {
+
+        this.solvers = solvers;
+        this.limit = limit;
+        this.filter = filter;
+
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+
+        pool = new ForkJoinPool(threads);
+    }
+
+
+    /**
+     Get the port the server listens on.
+
+     @return  the port
+     */
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+
+    /**
+     Accept connections and serve their requests until the server is closed.
+
+     @throws IOException  if the server socket fails
+     */
+    public void run() throws IOException {
+
+        try {
+            while (server.isOpen()) {
+
+                selector.select();
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+
+                while (keys.hasNext()) {
+
+                    SelectionKey key = keys.next();
+                    keys.remove();
+
+                    if (!key.isValid()) {
+                        continue;
+                    }
+
+                    if (key.isAcceptable()) {
+                        accept();
+                        continue;
+                    }
+
+                    Connection connection = (Connection) key.attachment();
+
+                    try {
+                        if (key.isReadable()) {
+                            connection.read();
+                        }
+                        if (key.isValid() && key.isWritable()) {
+                            connection.write();
+                        }
+                    } catch (IOException exception) {
+                        connection.close(); // the client has gone
+                    }
+                }
+
+                // write the responses the workers have finished
+                Connection connection;
+
+                while ((connection = ready.poll()) != null) {
+
+                    connection.queued.set(false);
+
+                    try {
+                        connection.write();
+                    } catch (IOException exception) {
+                        connection.close();
+                    }
+                }
+            }
+        } catch (ClosedSelectorException exception) {
+            // closed by another thread
+        }
+    }
+
+
+    /**
+     Stop serving: close the server socket and every connection.
+
+     @throws IOException  if the server socket cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+
+        pool.shutdownNow();
+        server.close();
+
+        for (SelectionKey key : selector.keys()) {
+            key.channel().close();
+        }
+
+        selector.close();
+    }
+
+
+    private void accept() throws IOException {
+
+        SocketChannel channel = server.accept();
+
+        if (channel == null) {
+            return;
+        }
+
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+
+        Connection connection = new Connection(channel);
+        connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+    }
+
+
+    /**
+     Solve a rack and encode its response.
+
+     @param line  the request line, trimmed
+
+     @return  the bytes of the response
+     */
+    private byte[] respond(String line) {
+
+        String response;
+
+        try {
+            response = solvers.get().report(RackSolver.filter(line), limit, filter) + "\n";
+        } catch (RuntimeException exception) {
+            response = "Cannot solve rack: " + exception.getMessage() + "\n\n";
+        }
+
+        return response.getBytes(StandardCharsets.UTF_8);
+    }
+
+
+    /**
+     A request whose response is ready once bytes is set, by a worker thread.
+     */
+    private static class Request {
+
+        private String line;
+        private volatile byte[] bytes;
+
+
+        Request(String line) {
+            this.line = line;
+        }
+    }
+
+
+    /**
+     The state of a connection. Everything but queued is only used by the selector thread.
+     */
+    private class Connection {
+
+        private SocketChannel channel;
+        private SelectionKey key;
+
+        private ByteBuffer in = ByteBuffer.allocate(MAX_LINE);
+        // bytes read that are not yet parsed into requests, ready to be filled
+
+        private ArrayDeque<Request> requests = new ArrayDeque<Request>();
+        // the requests in flight, oldest first
+
+        private ArrayDeque<ByteBuffer> out = new ArrayDeque<ByteBuffer>();
+        // the responses being written, oldest first
+
+        private ByteBuffer[] gather = new ByteBuffer[MAX_GATHER];
+
+        private boolean eof = false;
+        // true once the client has shut down its output
+
+        private boolean done = false;
+        // true once no more requests are taken: after ".", or after the last line before eof
+
+        private AtomicBoolean queued = new AtomicBoolean(false);
+        // true while the connection is in ready
+
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+
+        /**
+         Read the bytes the client has sent and start solving the requests they complete.
+         */
+        void read() throws IOException {
+
+            if (channel.read(in) < 0) {
+                eof = true;
+            }
+
+            if (!parse()) {
+                close(); // a line too long for the buffer
+                return;
+            }
+
+            update();
+        }
+
+
+        /**
+         Start solving the complete request lines in the bytes read, unless there are too many
+         requests in flight already. After eof, the bytes after the last newline are a request too.
+
+         @return  false iff the buffer is full of a single line
+         */
+        private boolean parse() {
+
+            in.flip();
+
+            int start = in.position();
+            int i = start;
+
+            for (; i < in.limit() && !done && inFlight() < MAX_IN_FLIGHT; i++) {
+                if (in.get(i) == '\n') {
+                    take(start, i);
+                    start = i + 1;
+                }
+            }
+
+            boolean scanned = i == in.limit();
+
+            if (scanned && eof && !done && inFlight() < MAX_IN_FLIGHT) {
+                take(start, in.limit());
+                start = in.limit();
+                done = true;
+            }
+
+            boolean full = scanned && start == 0 && in.limit() == in.capacity();
+
+            in.position(start);
+            in.compact();
+
+            return !full;
+        }
+
+
+        /**
+         Take the request line in[start, end).
+         */
+        private void take(int start, int end) {
+
+            String line = new String(in.array(), start, end - start, StandardCharsets.UTF_8).trim();
+
+            if (line.equals(".")) {
+                done = true;
+            } else if (!line.isEmpty()) {
+                submit(new Request(line));
+            }
+        }
+
+
+        private void submit(Request request) {
+
+            requests.add(request);
+
+            pool.execute(() -> {
+
+                request.bytes = respond(request.line);
+
+                // wake the selector, unless it has been woken for this connection already
+                if (queued.compareAndSet(false, true)) {
+                    ready.add(this);
+                    selector.wakeup();
+                }
+            });
+        }
+
+
+        /**
+         Write the responses at the head of the queue that are ready, as much of them as the
+         socket takes without waiting.
+         */
+        void write() throws IOException {
+
+            if (!channel.isOpen()) {
+                return;
+            }
+
+            while (!requests.isEmpty() && requests.peek().bytes != null) {
+                out.add(ByteBuffer.wrap(requests.poll().bytes));
+            }
+
+            while (!out.isEmpty()) {
+
+                int n = 0;
+
+                for (ByteBuffer buffer : out) {
+                    if (n == gather.length) {
+                        break;
+                    }
+                    gather[n++] = buffer;
+                }
+
+                channel.write(gather, 0, n);
+
+                while (!out.isEmpty() && !out.peek().hasRemaining()) {
+                    out.poll();
+                }
+
+                if (n > 0 && gather[n - 1].hasRemaining()) {
+                    break; // the socket is full
+                }
+            }
+
+            // answering requests may make room for the ones still in the buffer
+            if (!done && (in.position() > 0 || eof)) {
+                parse();
+            }
+
+            update();
+        }
+
+
+        /**
+         The requests taken whose responses are not all written yet.
+         */
+        private int inFlight() {
+            return requests.size() + out.size();
+        }
+
+
+        /**
+         Set what the selector waits for: input while more requests may be taken, output while
+         responses are left to write. Close the connection once it takes no more requests and
+         all of them are answered.
+         */
+        private void update() throws IOException {
+
+            if (done && requests.isEmpty() && out.isEmpty()) {
+                close();
+                return;
+            }
+
+            int interest = 0;
+
+            if (!done && !eof && inFlight() < MAX_IN_FLIGHT) {
+                interest |= SelectionKey.OP_READ;
+            }
+            if (!out.isEmpty()) {
+                interest |= SelectionKey.OP_WRITE;
+            }
+
+            key.interestOps(interest);
+        }
+
+
+        void close() {
+
+            key.cancel();
+
+            try {
+                channel.close();
+            } catch (IOException exception) {
+                // nothing more can be done with it
+            }
+        }
+    }
+}
@@ -0,0 +1,514 @@
+/**
+ Finds and reports all the words that can be made from a rack of Scrabble tiles with one anagram
+ dictionary. A rack solver never changes after it is created, so one solver can be shared by
+ many threads.
+ A solver can also search a dictionary with changes on top of it (a version of a LiveDictionary):
+ a small dictionary of added words is searched after the base dictionary, and the removed words
+ are left out of what the base dictionary finds.
+ */
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+
+public class RackSolver {
+
+    private AnagramDictionary ad;
+    private SignatureTrie trie;
+    private Rack rack;
+    private ScoreTable st;
+    private ResultCache cache;
+    private QueryMetrics metrics;
+
+    // The changes of a LiveDictionary version: words not in ad with their own trie, and words of ad
+    // that have been removed. They are null if there are none.
+    private AnagramDictionary added;
+    private SignatureTrie addedTrie;
+    private Set<String> removed;
+
+
+    /**
+     Creates a rack solver over an anagram dictionary, building its signature trie.
+
+     @param ad  the anagram dictionary to find words in
+     */
+    public RackSolver(AnagramDictionary ad) {
+        this(ad, null);
+    }
+
+
+    /**
+     Creates a rack solver over an anagram dictionary that keeps its ranked results in a cache.
+     The cache must only be shared by solvers of the same dictionary.
+
+     @param ad  the anagram dictionary to find words in
+     @param cache  the result cache, or null for no cache
+     */
+    public RackSolver(AnagramDictionary ad, ResultCache cache) {
+        this(ad, cache, null);
+    }
+
+
+    /**
+     Creates a rack solver over an anagram dictionary that keeps its ranked results in a cache and
+     records what its queries cost.
+
+     @param ad  the anagram dictionary to find words in
+     @param cache  the result cache, or null for no cache
+     @param metrics  the metrics the queries are recorded in, or null to record nothing
+     */
+    public RackSolver(AnagramDictionary ad, ResultCache cache, QueryMetrics metrics) {
+        this.ad = ad;
+        this.cache = cache;
+        this.metrics = metrics;
+        trie = new SignatureTrie(ad);
+        rack = new Rack();
+        st = ad.getScoreTable();
+    }
+
+
+    /**
+     Creates a rack solver over the dictionary of another solver with some words added and some
+     removed. The trie and the metrics of the other solver are shared, so only the added words are
+     indexed.
+
+     @param base  the solver of the dictionary the changes apply to
+     @param added  a dictionary of words that are not in the base dictionary, or null
+     @param removed  words of the base dictionary to leave out; not changed afterwards
+     @param cache  the result cache, or null for no cache
+     */
+    RackSolver(RackSolver base, AnagramDictionary added, Set<String> removed, ResultCache cache) {
+        ad = base.ad;
+        trie = base.trie;
+        rack = base.rack;
+        st = base.st;
+        metrics = base.metrics;
+        this.cache = cache;
+        this.added = added;
+        addedTrie = added == null ? null : new SignatureTrie(added);
+        this.removed = removed.isEmpty() ? null : removed;
+    }
+
+
+    /**
+     Remove the tiles of a rack users type in that are neither letters nor blanks.
+
+     @param target  a rack users type in
+
+     @return  the letters and blanks of target
+     */
+    public static String filter(String target) {
+        return target.replaceAll("[^a-zA-Z?_]+", ""); // ignore any non-letter, non-blank components on a rack
+    }
+
+
+    /**
+     Find all words that can be made from a rack by walking the signature trie of the anagram
+     dictionary (or, for a rack whose letters do not fit a LetterSignature, by matching the
+     subsets of the rack with the anagram dictionary).
+
+     @param filterTarget  a rack of letters and blanks only
+
+     @return  all the words found, in no particular order
+     */
+    public ArrayList<RackWord> findWords(String filterTarget) {
+
+        ArrayList<RackWord> result = new ArrayList<RackWord>();
+        findWords(filterTarget, result::add);
+
+        return result;
+    }
+
+
+    /**
+     Pass all words that can be made from a rack to a consumer as they are found.
+
+     @param filterTarget  a rack of letters and blanks only
+     @param result  the consumer the words are passed to, e.g. the add method of a list
+
+     @return  the number of words found
+     */
+    public int findWords(String filterTarget, Consumer<RackWord> result) {
+        return findWords(filterTarget, WordFilter.NONE, result);
+    }
+
+
+    /**
+     Pass the words that can be made from a rack and pass a filter to a consumer as they are
+     found. The filter is applied during the search (see SignatureTrie and Rack.forEachSubset),
+     so the words that do not pass are mostly never found at all.
+
+     @param filterTarget  a rack of letters and blanks only
+     @param filter  the words to find
+     @param result  the consumer the words are passed to, e.g. the add method of a list
+
+     @return  the number of words found
+     */
+    public int findWords(String filterTarget, WordFilter filter, Consumer<RackWord> result) {
+        return findWords(filterTarget, filter, result, null);
+    }
+
+
+    /**
+     Pass the words that can be made from a rack and pass a filter to a consumer, counting the
+     work of the search in the record of a query. The removed words of a version are left out
+     of the words the base dictionary finds before they are passed on.
+
+     @param query  the record of the query, or null
+     */
+    private int findWords(String filterTarget, WordFilter filter, Consumer<RackWord> result,
+                          QueryMetrics.Query query) {
+
+        if (added == null && removed == null) {
+            return findWords(ad, trie, filterTarget, filter, result, query);
+        }
+
+        int[] kept = new int[1]; // the words passed on
+
+        Consumer<RackWord> keep = w -> {
+            if (removed == null || !removed.contains(w.getWord())) {
+                kept[0]++;
+                result.accept(w);
+            }
+        };
+
+        findWords(ad, trie, filterTarget, filter, keep, query);
+
+        if (added != null) {
+            findWords(added, addedTrie, filterTarget, filter, keep, query);
+        }
+
+        return kept[0];
+    }
+
+
+    /**
+     Pass all words of one dictionary that can be made from a rack to a consumer.
+
+     @param dictionary  the dictionary to find words in
+     @param signatures  the signature trie of dictionary
+     @param filterTarget  a rack of letters and blanks only
+     @param filter  the words to find
+     @param result  the consumer the words are passed to
+     @param query  the record of the query, or null
+
+     @return  the number of words found
+     */
+    private int findWords(AnagramDictionary dictionary, SignatureTrie signatures, String filterTarget,
+                          WordFilter filter, Consumer<RackWord> result, QueryMetrics.Query query) {
+
+        String letters = Rack.removeBlanks(filterTarget);
+
+        if (LetterSignature.fits(letters)) {
+            int[] counts = new int[LetterSignature.ALPHABET_SIZE];
+            LetterSignature.countLetters(letters, counts);
+
+            // walk the trie with the tiles of the rack
+            return signatures.addWordsOf(counts, filterTarget.length() - letters.length(), filter, result, query);
+        }
+
+        // the trie only has lower case letters and at most LetterSignature.MAX_COUNT of each, so
+        // look up the subsets of the rack instead
+        return findOddWords(dictionary, letters, filterTarget.length() - letters.length(), filter, result, query);
+    }
+
+
+    /**
+     Pass all words of one dictionary that can be made from a rack whose letters do not fit a
+     LetterSignature to a consumer, by looking up the subsets of the rack. A blank stands for
+     any lower case letter, so for every choice of letters for some of the blanks the subsets of
+     the letters of the rack with the chosen letters are looked up. A word found for several
+     choices is only passed on once, with its blanks standing for the letters it could not get from
+     the rack, as SignatureTrie finds it.
+
+     @param dictionary  the dictionary to find words in
+     @param letters  the letters of the rack, without its blanks
+     @param blanks  the number of blanks on the rack
+     @param filter  the words to find
+     @param result  the consumer the words are passed to
+     @param query  the record of the query, or null
+
+     @return  the number of words found
+     */
+    private int findOddWords(AnagramDictionary dictionary, String letters, int blanks, WordFilter filter,
+                             Consumer<RackWord> result, QueryMetrics.Query query) {
+
+        ArrayList<String> found = new ArrayList<String>();
+        int[] probes = new int[2]; // the lookups, and those that found words
+
+        findOddWords(dictionary, letters, blanks, 'a', filter, found, probes);
+
+        if (query != null) {
+            query.add(probes[0], probes[0], probes[1]);
+        }
+
+        HashSet<String> added = new HashSet<String>();
+        int count = 0;
+
+        for (int i = 0; i < found.size(); i++) {
+
+            if (!added.add(found.get(i))) {
+                continue;
+            }
+
+            String blankString = blanksOf(found.get(i), letters);
+            int score = st.getScore(found.get(i)) - st.getScore(blankString);
+
+            // the subsets were only filtered by their letters
+            if (score >= filter.getMinScore()) {
+                result.accept(new RackWord(found.get(i), blankString, score));
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+
+    /**
+     Look up the subsets of some tiles, then of the tiles with one more blank letter each from
+     first to 'z' as long as there are blanks left, so every multiset of blank letters is chosen
+     once (its letters in order).
+
+     @param tiles  the letters of the rack and the letters chosen for blanks so far
+     @param blanks  the number of blanks left
+     @param first  the first letter the next blank may stand for
+     @param found  the words found, maybe more than once
+     @param probes  the lookups, and those that found words, counted so far
+     */
+    private void findOddWords(AnagramDictionary dictionary, String tiles, int blanks, char first, WordFilter filter,
+                              ArrayList<String> found, int[] probes) {
+
+        // find anagrams from the subsets of the tiles that may have any, as the subsets are generated;
+        // every subset visited is looked up
+        rack.forEachSubset(tiles, dictionary, filter, subset -> {
+            if (dictionary.addAnagramsOf(subset, filter.getLexicons(), found) > 0) {
+                probes[1]++;
+            }
+            probes[0]++;
+        });
+
+        if (blanks > 0) {
+            for (char c = first; c <= 'z'; c++) {
+                findOddWords(dictionary, tiles + c, blanks - 1, c, filter, found, probes);
+            }
+        }
+    }
+
+
+    /**
+     Get the letters a word needs blanks for when it is made from the letters of a rack: the
+     letters it has more of than the rack.
+
+     @param word  a word made of the letters and some blanks
+     @param letters  the letters of the rack, without its blanks
+
+     @return  the letters the blanks stand for, in alphabetical order
+     */
+    private static String blanksOf(String word, String letters) {
+
+        char[] needed = word.toCharArray();
+        Arrays.sort(needed);
+        char[] have = letters.toCharArray();
+        Arrays.sort(have);
+
+        // go through both in order, keeping the letters of the word the rack has run out of
+        StringBuilder blankString = new StringBuilder();
+        int j = 0;
+
+        for (int i = 0; i < needed.length; i++) {
+
+            while (j < have.length && have[j] < needed[i]) {
+                j++;
+            }
+
+            if (j < have.length && have[j] == needed[i]) {
+                j++;
+            } else {
+                blankString.append(needed[i]);
+            }
+        }
+
+        return blankString.toString();
+    }
+
+
+    /**
+     Find all words that can be made from a rack and report them the way WordFinder prints them:
+     the number of words, then every word with its score, sorted by score.
+
+     @param filterTarget  a rack of letters and blanks only
+
+     @return  the lines of the report, each ending with a newline
+     */
+    public String report(String filterTarget) {
+        return report(filterTarget, 0);
+    }
+
+
+    /**
+     Find all words that can be made from a rack and report them the way WordFinder prints them.
+     If limit is positive only the best limit words are listed; they are kept in a bounded heap
+     while the search runs, so the other words are never stored or sorted.
+
+     @param filterTarget  a rack of letters and blanks only
+     @param limit  the number of words to list, or 0 to list them all
+
+     @return  the lines of the report, each ending with a newline
+     */
+    public String report(String filterTarget, int limit) {
+        return report(filterTarget, limit, WordFilter.NONE);
+    }
+
+
+    /**
+     Find the words that can be made from a rack and pass a filter, and report them the way
+     WordFinder prints them.
+
+     @param filterTarget  a rack of letters and blanks only
+     @param limit  the number of words to list, or 0 to list them all
+     @param filter  the words to find
+
+     @return  the lines of the report, each ending with a newline
+     */
+    public String report(String filterTarget, int limit, WordFilter filter) {
+
+        ResultCache.Result result = rank(filterTarget, limit, filter);
+        long start = metrics == null ? 0 : System.nanoTime();
+        String report = format(filterTarget, result, limit);
+
+        if (metrics != null) {
+            metrics.printed(System.nanoTime() - start);
+        }
+
+        return report;
+    }
+
+
+    /**
+     Format the words of a rack the way WordFinder prints them, with the PLAIN format of
+     ResultWriter, so the report and WordFinder's output cannot drift apart.
+
+     @param filterTarget  a rack of letters and blanks only
+     @param result  the number of words found and the words listed
+     @param limit  the number of words that were asked for, or 0 for all of them
+
+     @return  the lines of the report, each ending with a newline
+     */
+    private static String format(String filterTarget, ResultCache.Result result, int limit) {
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (ResultWriter out = new ResultWriter(bytes, ResultWriter.Format.PLAIN)) {
+            out.write(filterTarget, result, limit);
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception); // a ByteArrayOutputStream is never full or closed
+        }
+
+        return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+
+    /**
+     Find the words that can be made from a rack in descending order of scores and then
+     ascending order of words if the scores are the same, through the result cache if there is one.
+
+     @param filterTarget  a rack of letters and blanks only
+     @param limit  the number of words to keep, or 0 to keep them all
+
+     @return  the number of words found and the words kept, best first
+     */
+    public ResultCache.Result rank(String filterTarget, int limit) {
+        return rank(filterTarget, limit, WordFilter.NONE);
+    }
+
+
+    /**
+     Find the words that can be made from a rack and pass a filter in the order of rank(String, int).
+
+     @param filterTarget  a rack of letters and blanks only
+     @param limit  the number of words to keep, or 0 to keep them all
+     @param filter  the words to find
+
+     @return  the number of words found and the words kept, best first
+     */
+    public ResultCache.Result rank(String filterTarget, int limit, WordFilter filter) {
+
+        String key = null;
+
+        if (cache != null) {
+            key = filter.isEmpty() ? ResultCache.key(filterTarget, limit)
+                                   : ResultCache.key(filterTarget, limit) + " " + filter;
+            ResultCache.Result cached = cache.get(key);
+
+            if (cached != null) {
+
+                if (metrics != null) {
+                    metrics.cacheHit();
+                }
+
+                return cached;
+            }
+        }
+
+        QueryMetrics.Query query = metrics == null ? null : metrics.start();
+        ResultCache.Result result;
+
+        if (limit <= 0) {
+            ArrayList<RackWord> all = new ArrayList<RackWord>();
+            findWords(filterTarget, filter, all::add, query);
+
+            if (query != null) {
+                query.searched();
+            }
+
+            Collections.sort(all, RackWord.BY_RANK);
+            result = new ResultCache.Result(all.size(), all);
+        } else {
+            TopWords top = new TopWords(limit);
+            findWords(filterTarget, filter, top, query);
+
+            if (query != null) {
+                query.searched();
+            }
+
+            result = new ResultCache.Result(top.seen(), top.sorted());
+        }
+
+        if (query != null) {
+            metrics.finish(query, result.getCount());
+        }
+
+        if (cache != null) {
+            cache.put(key, result);
+        }
+
+        return result;
+    }
+
+
+    /**
+     Get the result cache of this solver.
+
+     @return  the cache, or null if results are not cached
+     */
+    public ResultCache getCache() {
+        return cache;
+    }
+
+
+    /**
+     Get the metrics the queries of this solver are recorded in.
+
+     @return  the metrics, or null if nothing is recorded
+     */
+    public QueryMetrics getMetrics() {
+        return metrics;
+    }
+}
@@ -0,0 +1,110 @@
+/**
+ A word found on a rack, together with the letters that blank tiles stood for in it and its score.
+ Blank letters score zero, so two results of the same word may score differently.
+ */
+import java.util.Comparator;
+
+public class RackWord implements Comparable<RackWord> {
+
+    public static final Comparator<RackWord> BY_RANK =
+            Comparator.comparingInt(RackWord::getScore).reversed().thenComparing(Comparator.naturalOrder());
+    // best word first: the highest score, then alphabetical order
+
+    private String word;
+    private String blanks;
+    // the letters of word that blank tiles stood for, in alphabetical order; "" if no blank was used
+
+    private int score;
+    // the score of the tiles played for word, not counting the blank letters
+
+
+    /**
+     Creates a word found on a rack.
+
+     @param word  the word
+     @param blanks  the letters of word that blank tiles stood for, "" if none
+     @param score  the score of the tiles played for word
+     */
+    public RackWord(String word, String blanks, int score) {
+        this.word = word;
+        this.blanks = blanks;
+        this.score = score;
+    }
+
+
+    /**
+     Get the word.
+
+     @return  the word
+     */
+    public String getWord() {
+        return word;
+    }
+
+
+    /**
+     Get the letters of the word that blank tiles stood for.
+
+     @return  the blank letters in alphabetical order, "" if no blank was used
+     */
+    public String getBlanks() {
+        return blanks;
+    }
+
+
+    /**
+     Get the score of the tiles played for the word; the letters blanks stood for score zero.
+
+     @return  the score
+     */
+    public int getScore() {
+        return score;
+    }
+
+
+    /**
+     Order words alphabetically, and the same word by its blank letters.
+     */
+    @Override
+    public int compareTo(RackWord other) {
+
+        int byWord = word.compareTo(other.word);
+
+        if (byWord != 0) {
+            return byWord;
+        }
+
+        return blanks.compareTo(other.blanks);
+    }
+
+
+    @Override
+    public boolean equals(Object other) {
+
+        if (!(other instanceof RackWord)) {
+            return false;
+        }
+
+        return word.equals(((RackWord) other).word) && blanks.equals(((RackWord) other).blanks);
+    }
+
+
+    @Override
+    public int hashCode() {
+        return word.hashCode() * 31 + blanks.hashCode();
+    }
+
+
+    /**
+     Returns the word, followed by its blank letters if any, e.g. "quiz (blanks: u)".
+     */
+    @Override
+    public String toString() {
+
+        if (blanks.isEmpty()) {
+            return word;
+        }
+
+        return word + " (blanks: " + blanks + ")";
+    }
+}
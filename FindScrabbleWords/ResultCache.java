@@ -0,0 +1,219 @@
+/**
+ A bounded, thread-safe LRU cache of ranked rack results, keyed on the canonical form of a rack:
+ its tiles in sorted order (with both blank characters written as Rack.BLANK) and the number of
+ words listed. Racks that are permutations of each other share an entry.
+ The cache is split into segments, each an access-ordered LinkedHashMap behind its own lock, so
+ threads looking up different racks rarely wait for each other. The bound is on the whole cache:
+ a shared count of the results is kept, and a put that takes it over capacity evicts the least
+ recently used result of the segment it went to (or of the next segment that has another result),
+ so the cache holds at most capacity results once the puts have returned. The LRU order is only
+ kept within a segment.
+ */
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+public class ResultCache {
+
+    private static final int NUM_SEGMENTS = 16;
+
+    private Segment[] segments;
+    private int capacity;
+    private AtomicInteger size = new AtomicInteger();
+    // the number of results in all the segments
+
+    private LongAdder hits = new LongAdder();
+    private LongAdder misses = new LongAdder();
+    private LongAdder evictions = new LongAdder();
+
+
+    /**
+     Creates an empty cache.
+
+     @param capacity  the largest number of results kept, at least 1
+     */
+    public ResultCache(int capacity) {
+
+        this.capacity = capacity;
+        segments = new Segment[NUM_SEGMENTS];
+
+        for (int i = 0; i < NUM_SEGMENTS; i++) {
+            segments[i] = new Segment();
+        }
+    }
+
+
+    /**
+     Get the canonical key of a rack and a limit.
+
+     @param filterTarget  a rack of letters and blanks only
+     @param limit  the number of words listed, 0 for all
+
+     @return  the sorted tiles of the rack followed by the limit
+     */
+    public static String key(String filterTarget, int limit) {
+
+        char[] tiles = filterTarget.toCharArray();
+
+        for (int i = 0; i < tiles.length; i++) {
+            if (Rack.isBlank(tiles[i])) {
+                tiles[i] = Rack.BLANK;
+            }
+        }
+
+        Arrays.sort(tiles);
+
+        return new String(tiles) + "/" + limit;
+    }
+
+
+    /**
+     Look up the result of a rack.
+
+     @param key  the canonical key of the rack, from key()
+
+     @return  the result, or null if it is not in the cache
+     */
+    public Result get(String key) {
+
+        Segment segment = segmentOf(key);
+        Result result;
+
+        synchronized (segment) {
+            result = segment.get(key);
+        }
+
+        if (result == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+
+        return result;
+    }
+
+
+    /**
+     Store the result of a rack. If the cache is then over capacity, the least recently used result
+     of the segment of the rack is evicted, or if the rack is alone in its segment, that of the next
+     segment that has a result.
+
+     @param key  the canonical key of the rack, from key()
+     @param result  the result of the rack
+     */
+    public void put(String key, Result result) {
+
+        int first = indexOf(key);
+        Segment segment = segments[first];
+
+        synchronized (segment) {
+            if (segment.put(key, result) != null) {
+                return; // the result of the rack was replaced, so the size is the same
+            }
+        }
+
+        if (size.incrementAndGet() <= capacity) {
+            return;
+        }
+
+        // one lock at a time, so two puts never wait for each other's segments
+        for (int i = 0; i < NUM_SEGMENTS; i++) {
+
+            Segment other = segments[(first + i) % NUM_SEGMENTS];
+            boolean evicted;
+
+            synchronized (other) {
+                evicted = other.removeEldest(key);
+            }
+
+            if (evicted) {
+                size.decrementAndGet();
+                evictions.increment();
+                return;
+            }
+        }
+    }
+
+
+    public long getHits() { return hits.sum(); }
+    public long getMisses() { return misses.sum(); }
+    public long getEvictions() { return evictions.sum(); }
+
+
+    /**
+     Returns the counters of the cache, e.g. "cache: 10 hits, 5 misses, 0 evictions".
+     */
+    @Override
+    public String toString() {
+        return "cache: " + getHits() + " hits, " + getMisses() + " misses, " + getEvictions() + " evictions";
+    }
+
+
+    private Segment segmentOf(String key) {
+        return segments[indexOf(key)];
+    }
+
+
+    private static int indexOf(String key) {
+        return (key.hashCode() & 0x7FFFFFFF) % NUM_SEGMENTS;
+    }
+
+
+    /**
+     The ranked words of a rack and how many words were found in all. Results are immutable.
+     */
+    public static class Result {
+
+        private int count;
+        private List<RackWord> ranked;
+
+
+        /**
+         @param count  the number of words found
+         @param ranked  the words listed, best first
+         */
+        public Result(int count, List<RackWord> ranked) {
+            this.count = count;
+            this.ranked = Collections.unmodifiableList(ranked);
+        }
+
+        public int getCount() { return count; }
+        public List<RackWord> getRanked() { return ranked; }
+    }
+
+
+    /**
+     One segment of the cache: a map in LRU order, the least recently used result first.
+     */
+    @SuppressWarnings("serial")
+    private static class Segment extends LinkedHashMap<String, Result> {
+
+        Segment() {
+            super(16, 0.75f, true); // access order, so the eldest entry is the least recently used
+        }
+
+        /**
+         Remove the least recently used result, unless it is that of a rack to keep.
+
+         @param keep  the key of the rack whose result is kept
+
+         @return  true iff a result was removed
+         */
+        boolean removeEldest(String keep) {
+
+            Iterator<Map.Entry<String, Result>> eldest = entrySet().iterator();
+
+            if (!eldest.hasNext() || eldest.next().getKey().equals(keep)) {
+                return false;
+            }
+
+            eldest.remove();
+            return true;
+        }
+    }
+}
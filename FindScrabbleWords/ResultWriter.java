@@ -0,0 +1,337 @@
+/**
+ Writes the words found on racks to an output stream in one of three formats:
+ PLAIN, the report WordFinder prints, and the only formatter of it (RackSolver.report uses it too);
+ TSV, a line per word with the rack, the score, the word and the letters blanks stood for, separated by tabs;
+ JSON, a line per rack with a JSON object of the rack, the number of words found and the words listed, e.g.
+ {"rack":"quiz?","count":12,"words":[{"word":"quiz","blanks":"","score":22},...]}
+ Results are formatted straight into bytes in a buffer that is reused, and the buffer is written
+ to the stream only when it is full or flushed, so a large result costs a few big writes instead of
+ a write and a String per line. Only flush() and close() flush the stream itself.
+ Not safe for use by several threads at once.
+ */
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+public class ResultWriter implements Flushable, AutoCloseable {
+
+    /**
+     The ways results can be written.
+     */
+    public enum Format { PLAIN, TSV, JSON }
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    private OutputStream out;
+    private Format format;
+
+    private byte[] buffer = new byte[BUFFER_SIZE];
+    private int size = 0;
+    // buffer[0, size) is written but not yet passed on to out
+
+
+    /**
+     Creates a writer of results.
+
+     @param out  the stream the results are written to
+     @param format  how the results are written
+     */
+    public ResultWriter(OutputStream out, Format format) {
+        this.out = out;
+        this.format = format;
+    }
+
+
+    /**
+     Get a format from its name.
+
+     @param name  "plain", "tsv" or "json", in any case
+
+     @return  the format
+
+     @throws IllegalArgumentException  if there is no format of that name
+     */
+    public static Format format(String name) {
+        return Format.valueOf(name.toUpperCase());
+    }
+
+
+    /**
+     Write the words found on a rack.
+
+     @param filterTarget  the rack, letters and blanks only
+     @param result  the number of words found and the words listed, best first
+     @param limit  the number of words that were asked for, or 0 for all of them
+
+     @throws IOException  if the stream cannot be written
+     */
+    public void write(String filterTarget, ResultCache.Result result, int limit) throws IOException {
+
+        switch (format) {
+            case TSV:
+                writeTsv(filterTarget, result.getRanked());
+                break;
+            case JSON:
+                writeJson(filterTarget, result);
+                break;
+            default:
+                writePlain(filterTarget, result, limit);
+                break;
+        }
+    }
+
+
+    /**
+     Write text as it is, e.g. a prompt.
+
+     @param text  the text
+
+     @throws IOException  if the stream cannot be written
+     */
+    public void write(String text) throws IOException {
+        append(text);
+    }
+
+
+    /**
+     Write the bytes in the buffer to the stream, and flush the stream.
+
+     @throws IOException  if the stream cannot be written
+     */
+    @Override
+    public void flush() throws IOException {
+        drain();
+        out.flush();
+    }
+
+
+    /**
+     Flush the writer and close the stream.
+
+     @throws IOException  if the stream cannot be written or closed
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+        out.close();
+    }
+
+
+    private void writePlain(String filterTarget, ResultCache.Result result, int limit) throws IOException {
+
+        List<RackWord> ranked = result.getRanked();
+
+        append("We can make ");
+        append(result.getCount());
+        append(" words from \"");
+        append(filterTarget);
+        append("\"\n");
+
+        // no result to print out
+        if (result.getCount() == 0) {
+            return;
+        }
+
+        if (limit <= 0) {
+            append("All of the words with their scores (sorted by score):\n");
+        } else {
+            append("The best ");
+            append(ranked.size());
+            append(" words with their scores:\n");
+        }
+
+        for (int i = 0; i < ranked.size(); i++) {
+
+            RackWord w = ranked.get(i);
+
+            append(w.getScore());
+            append(": ");
+            append(w.getWord());
+
+            if (!w.getBlanks().isEmpty()) {
+                append(" (blanks: ");
+                append(w.getBlanks());
+                append(")");
+            }
+
+            append('\n');
+        }
+    }
+
+
+    private void writeTsv(String filterTarget, List<RackWord> ranked) throws IOException {
+
+        for (int i = 0; i < ranked.size(); i++) {
+
+            RackWord w = ranked.get(i);
+
+            append(filterTarget);
+            append('\t');
+            append(w.getScore());
+            append('\t');
+            append(w.getWord());
+            append('\t');
+            append(w.getBlanks());
+            append('\n');
+        }
+    }
+
+
+    private void writeJson(String filterTarget, ResultCache.Result result) throws IOException {
+
+        List<RackWord> ranked = result.getRanked();
+
+        append("{\"rack\":");
+        appendJson(filterTarget);
+        append(",\"count\":");
+        append(result.getCount());
+        append(",\"words\":[");
+
+        for (int i = 0; i < ranked.size(); i++) {
+
+            RackWord w = ranked.get(i);
+
+            append(i == 0 ? "{\"word\":" : ",{\"word\":");
+            appendJson(w.getWord());
+            append(",\"blanks\":");
+            appendJson(w.getBlanks());
+            append(",\"score\":");
+            append(w.getScore());
+            append('}');
+        }
+
+        append("]}\n");
+    }
+
+
+    /**
+     Append a string as UTF-8; ASCII characters are copied one byte each without encoding.
+     */
+    private void append(String s) throws IOException {
+
+        int n = s.length();
+        reserve(n);
+
+        for (int i = 0; i < n; i++) {
+
+            char c = s.charAt(i);
+
+            if (c >= 0x80) {
+                // rare: encode the rest properly
+                appendBytes(s.substring(i).getBytes(StandardCharsets.UTF_8));
+                return;
+            }
+
+            buffer[size++] = (byte) c;
+        }
+    }
+
+
+    private void append(char c) throws IOException {
+        reserve(1);
+        buffer[size++] = (byte) c;
+    }
+
+
+    /**
+     Append a number in decimal without creating a String.
+     */
+    private void append(int value) throws IOException {
+
+        reserve(11);
+
+        if (value < 0) {
+            buffer[size++] = '-';
+            value = -value; // the scores are never Integer.MIN_VALUE
+        }
+
+        int digits = 1;
+
+        for (int v = value / 10; v > 0; v /= 10) {
+            digits++;
+        }
+
+        for (int i = size + digits - 1; i >= size; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+
+        size += digits;
+    }
+
+
+    /**
+     Append a string as a JSON string literal, escaping quotes, backslashes and control characters.
+     */
+    private void appendJson(String s) throws IOException {
+
+        append('"');
+
+        int start = 0;
+
+        for (int i = 0; i < s.length(); i++) {
+
+            char c = s.charAt(i);
+
+            if (c == '"' || c == '\\' || c < 0x20) {
+
+                append(s.substring(start, i));
+                reserve(6);
+
+                if (c == '"' || c == '\\') {
+                    buffer[size++] = '\\';
+                    buffer[size++] = (byte) c;
+                } else {
+                    buffer[size++] = '\\';
+                    buffer[size++] = 'u';
+                    buffer[size++] = '0';
+                    buffer[size++] = '0';
+                    buffer[size++] = HEX[c >> 4];
+                    buffer[size++] = HEX[c & 0xF];
+                }
+
+                start = i + 1;
+            }
+        }
+
+        append(start == 0 ? s : s.substring(start));
+        append('"');
+    }
+
+
+    private void appendBytes(byte[] bytes) throws IOException {
+        reserve(bytes.length);
+        System.arraycopy(bytes, 0, buffer, size, bytes.length);
+        size += bytes.length;
+    }
+
+
+    /**
+     Make room for n more bytes in the buffer, writing it to the stream if it is too full.
+     */
+    private void reserve(int n) throws IOException {
+
+        if (size + n <= buffer.length) {
+            return;
+        }
+
+        drain();
+
+        if (n > buffer.length) {
+            buffer = new byte[n];
+        }
+    }
+
+
+    private void drain() throws IOException {
+
+        if (size > 0) {
+            out.write(buffer, 0, size);
+            size = 0;
+        }
+    }
+}
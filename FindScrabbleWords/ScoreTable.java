@@ -1,69 +1,151 @@
 /**
  The scores of scrabble letters and compute the total score of a word.
  Letters that occur more often are worth less and letters that occur less often are worth more
+ The default scores are the English tile values; other tile sets can be loaded from a file.
  */
-import java.util.Map;
-import java.util.HashMap;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Scanner;
 
 public class ScoreTable {
 
-    // use a Map to set scores of letters
-    private Map<Character, Integer> score;
+    private static final String ENGLISH_LETTERS = "abcdefghijklmnopqrstuvwxyz";
+    private static final int[] ENGLISH_SCORES =
+            { 1, 3, 3, 2, 1, 4, 2, 4, 1, 8, 5, 1, 3, 1, 1, 3, 10, 1, 1, 1, 1, 4, 4, 8, 4, 10 };
 
-    // ScoreTable would be initialized by the ScoreTable Constructor
+    // score[c] is the score of char c, with the upper and lower case of a letter having the same score.
+    // Chars past the end of the array, blanks and chars with no score score zero.
+    private int[] score;
+
+    // ScoreTable would be initialized by the ScoreTable Constructor with the English tile values
     public ScoreTable() {
 
-        score = new HashMap<Character, Integer>();
-        score.put('a', 1);
-        score.put('b', 3);
-        score.put('c', 3);
-        score.put('d', 2);
-        score.put('e', 1);
-        score.put('f', 4);
-        score.put('g', 2);
-        score.put('h', 4);
-        score.put('i', 1);
-        score.put('j', 8);
-        score.put('k', 5);
-        score.put('l', 1);
-        score.put('m', 3);
-        score.put('n', 1);
-        score.put('o', 1);
-        score.put('p', 3);
-        score.put('q', 10);
-        score.put('r', 1);
-        score.put('s', 1);
-        score.put('t', 1);
-        score.put('u', 1);
-        score.put('v', 4);
-        score.put('w', 4);
-        score.put('x', 8);
-        score.put('y', 4);
-        score.put('z', 10);
+        score = new int[128];
+
+        for (int i = 0; i < ENGLISH_LETTERS.length(); i++) {
+            setScore(ENGLISH_LETTERS.charAt(i), ENGLISH_SCORES[i]);
+        }
+    }
+
+
+    /**
+     Create a score table from a file of letter values, for other languages or tile sets.
+     Every line of the file has a letter and its score separated by whitespace, e.g. "q 10".
+     Empty lines and lines starting with '#' are skipped.
+
+     @param fileName  the name of the file to read from
+
+     @throws FileNotFoundException  if the file is not found
+     @throws IOException  if a line is not a letter followed by a score
+     */
+    public ScoreTable(String fileName) throws IOException {
+
+        score = new int[128];
+        Scanner sc = new Scanner(new File(fileName), "UTF-8");
+        int lineNumber = 0;
+
+        try {
+            while (sc.hasNextLine()) {
+
+                String line = sc.nextLine().trim();
+                lineNumber++;
+
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+
+                String[] parts = line.split("\\s+");
+
+                if (parts.length != 2 || parts[0].length() != 1 || !parts[1].matches("\\d+")) {
+                    throw new IOException(fileName + ":" + lineNumber + ": expected a letter and a score");
+                }
+
+                setScore(parts[0].charAt(0), Integer.parseInt(parts[1]));
+            }
+        } finally {
+            sc.close();
+        }
     }
 
 
     /**
      Compute the total score of string s. Both of upper and lower case
      versions of the letters would have the same score , e.g., 'a' and
-     'A' will have the same score.
+     'A' will have the same score. Blank tiles ('?' or '_') score zero.
+     No memory is allocated.
 
      @param s  a word to be computed for scores
 
      @return total score of a word
      */
-    public int getScore(String s) {
+    public int getScore(CharSequence s) {
 
         int totalScore = 0;
 
-        // turn all letters to lower case becauace both of the upper or lower case have the same score
-        s = s.toLowerCase();
-
-        // compute the total score
+        // compute the total score; the table has both cases of every letter, so s is not lower cased
         for (int i = 0; i < s.length(); i++){
-            totalScore += score.get(s.charAt(i));
+            char c = s.charAt(i);
+
+            if (c < score.length) {
+                totalScore += score[c];
+            }
+        }
+
+        return totalScore;
+    }
+
+
+    /**
+     Get the score of a single letter; both cases of a letter have the same score.
+
+     @param c  the letter
+
+     @return  the score of c, 0 if c has no score
+     */
+    public int getScore(char c) {
+        return c < score.length ? score[c] : 0;
+    }
+
+
+    /**
+     Compute the total score of the letters of a LetterSignature.
+
+     @param low  the low long of the signature
+     @param high  the high long of the signature
+
+     @return total score of a word with that signature
+     */
+    public int getScore(long low, long high) {
+
+        int totalScore = 0;
+
+        for (int i = 0; i < LetterSignature.ALPHABET_SIZE; i++) {
+            totalScore += LetterSignature.count(low, high, i) * score['a' + i];
         }
 
         return totalScore;
     }
-}
\ No newline at end of file
+
+
+    /**
+     Set the score of both cases of a letter, growing the table if needed.
+
+     @param letter  the letter
+     @param value  its score
+     */
+    private void setScore(char letter, int value) {
+
+        char lower = Character.toLowerCase(letter);
+        char upper = Character.toUpperCase(letter);
+        int needed = Math.max(lower, upper) + 1;
+
+        if (needed > score.length) {
+            score = Arrays.copyOf(score, needed);
+        }
+
+        score[lower] = value;
+        score[upper] = value;
+    }
+}
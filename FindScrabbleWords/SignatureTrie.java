@@ -0,0 +1,389 @@
+/**
+ A letter-count trie over the signatures of an AnagramDictionary, used to find every word that can
+ be made from a rack, blank tiles included, without enumerating the subsets of the rack.
+ Every signature is inserted as its letters in sorted order (e.g. "acer" for race, care and acre),
+ so a path from the root is a multiset of letters and a node that ends a path holds the bucket of
+ the words made of exactly those letters. The search walks down only while the rack still has the
+ letter of the next node, so it only visits letter multisets that lead to real words.
+ Every node also knows the length of the longest path below it and the best score of the words
+ at or below it (and the lexicons of those words, in a dictionary of several lexicons), so a
+ search with a WordFilter skips the subtrees that cannot pass it.
+ The trie is immutable once built and can be searched by several threads at once.
+ */
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+public class SignatureTrie {
+
+    private static final int NONE = -1;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private AnagramDictionary dictionary;
+    private ScoreTable scoreTable;
+
+    // The nodes of the trie, node 0 being the root. The children of a node form a linked list
+    // starting at firstChild[node] and continuing through nextSibling.
+    // letter[node] is the letter on the edge into node (0 for 'a'), and bucket[node] is the
+    // dictionary bucket of the words spelled by the path to node, or NONE.
+    private int[] firstChild;
+    private int[] nextSibling;
+    private byte[] letter;
+    private int[] bucket;
+    private int numNodes;
+
+    // height[node] is the number of edges of the longest path down from node, and best[node] the
+    // highest bucket score of node and the nodes below it
+    private short[] height;
+    private int[] best;
+
+    // lexicons[node] is the union of the lexicons of the words at and below node, or lexicons is
+    // null if the dictionary has one lexicon
+    private int[] lexicons;
+
+
+    /**
+     Build the trie of all the signatures of a dictionary.
+
+     @param dictionary  the dictionary to search
+     */
+    public SignatureTrie(AnagramDictionary dictionary) {
+
+        this.dictionary = dictionary;
+        scoreTable = dictionary.getScoreTable();
+        firstChild = new int[INITIAL_CAPACITY];
+        nextSibling = new int[INITIAL_CAPACITY];
+        letter = new byte[INITIAL_CAPACITY];
+        bucket = new int[INITIAL_CAPACITY];
+        numNodes = 0;
+        addNode(0); // the root
+
+        for (int b = 0; b < dictionary.numBuckets(); b++) {
+            insert(b, dictionary.signatureLow(b), dictionary.signatureHigh(b));
+        }
+
+        firstChild = Arrays.copyOf(firstChild, numNodes);
+        nextSibling = Arrays.copyOf(nextSibling, numNodes);
+        letter = Arrays.copyOf(letter, numNodes);
+        bucket = Arrays.copyOf(bucket, numNodes);
+
+        summarize();
+    }
+
+
+    /**
+     Pass all the words that can be made from a rack to a consumer as they are found.
+     A blank is only used for a letter the rack has run out of, so every word is found once,
+     with its blanks standing for the letters it could not get from the rack. The search only
+     follows a node if the rack has its letter or a blank is left, so with few blanks it stays
+     close to the size of the search without blanks.
+     rackCounts is changed during the search but is restored before returning.
+
+     @param rackCounts  multiplicity of each letter on the rack, 'a' at index 0
+     @param blanks  the number of blank tiles on the rack
+     @param result  the consumer the words are passed to, e.g. the add method of a list
+
+     @return  the number of words found
+     */
+    public int addWordsOf(int[] rackCounts, int blanks, Consumer<RackWord> result) {
+        return addWordsOf(rackCounts, blanks, WordFilter.NONE, result);
+    }
+
+
+    /**
+     Pass the words that can be made from a rack and pass a filter to a consumer as they are found.
+     The filter prunes the search: a node is not followed if the paths below it are all too
+     short, if the path to it is already too long, if its words and the words below it score too
+     low or are in none of the lexicons asked for, or if a required letter is missing that sorts
+     before its letter, since the letters of a path only go up.
+
+     @param rackCounts  multiplicity of each letter on the rack, 'a' at index 0
+     @param blanks  the number of blank tiles on the rack
+     @param filter  the words to find
+     @param result  the consumer the words are passed to, e.g. the add method of a list
+
+     @return  the number of words found
+     */
+    public int addWordsOf(int[] rackCounts, int blanks, WordFilter filter, Consumer<RackWord> result) {
+        return addWordsOf(rackCounts, blanks, filter, result, null);
+    }
+
+
+    /**
+     Pass the words that can be made from a rack and pass a filter to a consumer as they are found, and
+     add the counts of the search to the record of a query: the nodes visited, the nodes with
+     words that were looked at, and those of them that added words.
+
+     @param rackCounts  multiplicity of each letter on the rack, 'a' at index 0
+     @param blanks  the number of blank tiles on the rack
+     @param filter  the words to find
+     @param result  the consumer the words are passed to, e.g. the add method of a list
+     @param query  the record of the query, or null
+
+     @return  the number of words found
+     */
+    public int addWordsOf(int[] rackCounts, int blanks, WordFilter filter, Consumer<RackWord> result,
+                          QueryMetrics.Query query) {
+
+        // a required letter that is not on the rack takes a blank
+        int lacking = 0;
+
+        for (int c = 0; c < LetterSignature.ALPHABET_SIZE; c++) {
+            if ((filter.getRequiredMask() & (1 << c)) != 0 && rackCounts[c] == 0) {
+                lacking++;
+            }
+        }
+
+        if (lacking > blanks) {
+            return 0;
+        }
+
+        Search search = new Search(rackCounts, blanks, filter, result);
+        int found = search.visit(0, 0, blanks, 0, 0, filter.getRequiredMask());
+
+        if (query != null) {
+            query.add(search.nodes, search.probes, search.hits);
+        }
+
+        return found;
+    }
+
+
+    /**
+     Get the number of nodes in the trie.
+
+     @return  the number of nodes, including the root
+     */
+    public int size() {
+        return numNodes;
+    }
+
+
+    /**
+     The state of one search of the trie.
+     */
+    private class Search {
+
+        private int[] counts;
+        private char[] blankLetters;
+        private WordFilter filter;
+        private Consumer<RackWord> result;
+
+        // the nodes visited, the buckets looked at and those that added words; counting them is
+        // cheaper than checking whether anyone wants them
+        private int nodes = 0;
+        private int probes = 0;
+        private int hits = 0;
+
+
+        Search(int[] counts, int blanks, WordFilter filter, Consumer<RackWord> result) {
+            this.counts = counts;
+            this.filter = filter;
+            this.result = result;
+            blankLetters = new char[blanks];
+        }
+
+
+        /**
+         Visit the children of a node that the rack still has letters or blanks for and that may
+         lead to words passing the filter, adding the words found.
+
+         @param node  the node whose children are visited
+         @param depth  the length of the path to node
+         @param blanks  the blanks left on the rack
+         @param numBlanks  the number of blanks used so far; blankLetters[0, numBlanks) are the
+                           letters they stand for, in the order they were used
+         @param blankScore  the score of the letters the blanks stand for
+         @param missing  the mask of the required letters the path to node does not have
+
+         @return  the number of words found
+         */
+        int visit(int node, int depth, int blanks, int numBlanks, int blankScore, int missing) {
+
+            int found = 0;
+
+            if (depth >= filter.getMaxLength()) {
+                return 0;
+            }
+
+            for (int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+
+                int c = letter[child];
+                boolean useBlank = counts[c] == 0;
+
+                if (useBlank && blanks == 0) {
+                    continue;
+                }
+
+                // every later letter of the path sorts after c, so a required letter before c
+                // can no longer be added
+                if ((missing & ((1 << c) - 1)) != 0 || depth + 1 + height[child] < filter.getMinLength()) {
+                    continue;
+                }
+
+                int childBlankScore = useBlank ? blankScore + scoreTable.getScore((char) ('a' + c)) : blankScore;
+
+                if (best[child] - childBlankScore < filter.getMinScore()
+                        || (lexicons != null && (lexicons[child] & filter.getLexicons()) == 0)) {
+                    continue;
+                }
+
+                if (useBlank) {
+                    blanks--;
+                    blankLetters[numBlanks++] = (char) ('a' + c);
+                } else {
+                    counts[c]--;
+                }
+
+                nodes++;
+
+                int childMissing = missing & ~(1 << c);
+
+                if (bucket[child] != NONE && childMissing == 0 && depth + 1 >= filter.getMinLength()) {
+                    found += addBucket(bucket[child], numBlanks, childBlankScore);
+                }
+
+                found += visit(child, depth + 1, blanks, numBlanks, childBlankScore, childMissing);
+
+                if (useBlank) {
+                    blanks++;
+                    numBlanks--;
+                } else {
+                    counts[c]++;
+                }
+            }
+
+            return found;
+        }
+
+
+        /**
+         Add the words of a bucket found with some blanks, if they score enough.
+
+         @return  the number of words found
+         */
+        private int addBucket(int b, int numBlanks, int blankScore) {
+
+            int score = dictionary.bucketScore(b) - blankScore;
+
+            probes++;
+
+            if (score < filter.getMinScore()) {
+                return 0;
+            }
+
+            // blanks are used in trie order, which is alphabetical
+            String blankString = numBlanks == 0 ? "" : new String(blankLetters, 0, numBlanks);
+            int end = dictionary.bucketEndWord(b);
+            int added = 0;
+
+            for (int i = dictionary.bucketFirstWord(b); i < end; i++) {
+                if ((dictionary.wordLexicons(i) & filter.getLexicons()) != 0) {
+                    result.accept(new RackWord(dictionary.word(i), blankString, score));
+                    added++;
+                }
+            }
+
+            if (added > 0) {
+                hits++;
+            }
+
+            return added;
+        }
+    }
+
+
+    /**
+     Compute the height, the best score and the lexicons of every node. A child is always added
+     after its parent, so going through the nodes backwards sees every child before its parent.
+     */
+    private void summarize() {
+
+        height = new short[numNodes];
+        best = new int[numNodes];
+        lexicons = dictionary.numLexicons() > 1 ? new int[numNodes] : null;
+
+        for (int node = numNodes - 1; node >= 0; node--) {
+
+            best[node] = bucket[node] == NONE ? Integer.MIN_VALUE : dictionary.bucketScore(bucket[node]);
+
+            if (lexicons != null && bucket[node] != NONE) {
+                lexicons[node] = dictionary.bucketLexicons(bucket[node]);
+            }
+
+            for (int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+
+                height[node] = (short) Math.max(height[node], height[child] + 1);
+                best[node] = Math.max(best[node], best[child]);
+
+                if (lexicons != null) {
+                    lexicons[node] |= lexicons[child];
+                }
+            }
+        }
+    }
+
+
+    /**
+     Insert the sorted letters of a signature into the trie.
+
+     @param b  the bucket of the signature
+     @param low  the low long of the signature
+     @param high  the high long of the signature
+     */
+    private void insert(int b, long low, long high) {
+
+        int node = 0;
+
+        for (int c = 0; c < LetterSignature.ALPHABET_SIZE; c++) {
+            for (int n = LetterSignature.count(low, high, c); n > 0; n--) {
+                node = child(node, c);
+            }
+        }
+
+        bucket[node] = b;
+    }
+
+
+    /**
+     Find the child of a node on the edge for letter c, creating it if it does not exist yet.
+     */
+    private int child(int node, int c) {
+
+        for (int child = firstChild[node]; child != NONE; child = nextSibling[child]) {
+            if (letter[child] == c) {
+                return child;
+            }
+        }
+
+        int child = addNode(c);
+        nextSibling[child] = firstChild[node];
+        firstChild[node] = child;
+
+        return child;
+    }
+
+
+    /**
+     Add a node with no children and no bucket.
+
+     @param c  the letter on the edge into the node
+
+     @return  the index of the new node
+     */
+    private int addNode(int c) {
+
+        if (numNodes == firstChild.length) {
+            firstChild = Arrays.copyOf(firstChild, numNodes * 2);
+            nextSibling = Arrays.copyOf(nextSibling, numNodes * 2);
+            letter = Arrays.copyOf(letter, numNodes * 2);
+            bucket = Arrays.copyOf(bucket, numNodes * 2);
+        }
+
+        firstChild[numNodes] = NONE;
+        nextSibling[numNodes] = NONE;
+        letter[numNodes] = (byte) c;
+        bucket[numNodes] = NONE;
+
+        return numNodes++;
+    }
+}
@@ -0,0 +1,276 @@
+/**
+ * SignatureTrieTester Class
+ * Test that SignatureTrie finds the same words as looking up every subset of a rack with
+ * Rack.allSubsets and AnagramDictionary: the same words, with the same blanks and scores, on
+ * generated racks with and without blanks, under length, required letter, score and lexicon
+ * filters. Racks the trie cannot take (more than LetterSignature.MAX_COUNT of a letter) are
+ * tested through RackSolver, which looks up their subsets itself.
+ * Every test prints its number of mismatches, which should be 0.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+public class SignatureTrieTester {
+
+    private static final int NUM_RACKS = 100;
+
+    private static final String WORD_LETTERS = "abcdefgh";
+    // the letters of the generated words; the racks also have letters no word has
+
+    public static void main(String args[]) throws IOException {
+
+        Random random = new Random(455);
+        ScoreTable scoreTable = new ScoreTable();
+
+        // two lexicons that share some of their words
+        ArrayList<String> words = randomWords(random, 2000);
+        String[] lexiconFiles = {wordFile(words.subList(0, 1500)), wordFile(words.subList(1000, 2000))};
+
+        AnagramDictionary dictionary = new AnagramDictionary(lexiconFiles, scoreTable);
+        SignatureTrie trie = new SignatureTrie(dictionary);
+        RackSolver solver = new RackSolver(dictionary);
+
+        WordFilter[] filters = {
+                WordFilter.NONE,
+                new WordFilter(3, 5, "", Integer.MIN_VALUE),
+                new WordFilter(0, Integer.MAX_VALUE, "ab", Integer.MIN_VALUE),
+                new WordFilter(0, Integer.MAX_VALUE, "", 8),
+                new WordFilter(0, Integer.MAX_VALUE, "", Integer.MIN_VALUE, 1),
+                new WordFilter(2, 4, "c", 5, 2)
+        };
+
+        for (int blanks = 0; blanks <= 2; blanks++) {
+            for (int f = 0; f < filters.length; f++) {
+
+                int mismatches = 0;
+
+                for (int i = 0; i < NUM_RACKS; i++) {
+
+                    String letters = randomRack(random, 7 - blanks);
+                    int[] counts = new int[LetterSignature.ALPHABET_SIZE];
+                    LetterSignature.countLetters(letters, counts);
+
+                    ArrayList<RackWord> found = new ArrayList<RackWord>();
+                    trie.addWordsOf(counts, blanks, filters[f], found::add);
+
+                    if (!lines(found).equals(subsetWords(dictionary, scoreTable, letters, blanks, filters[f]))) {
+                        mismatches++;
+                    }
+                }
+
+                System.out.println("Trie, " + blanks + " blanks, filter \"" + filters[f] + "\": mismatches [exp:0]: "
+                        + mismatches);
+            }
+        }
+
+        // racks with more of a letter than a LetterSignature can count
+        int mismatches = 0;
+
+        for (int i = 0; i < NUM_RACKS; i++) {
+
+            char[] many = new char[LetterSignature.MAX_COUNT + 1];
+            Arrays.fill(many, WORD_LETTERS.charAt(random.nextInt(WORD_LETTERS.length())));
+
+            String letters = new String(many) + randomRack(random, 3);
+            int blanks = i % 3;
+            String rack = letters + "??".substring(0, blanks);
+
+            ArrayList<RackWord> found = new ArrayList<RackWord>();
+            solver.findWords(rack, found::add);
+
+            if (!lines(found).equals(subsetWords(dictionary, scoreTable, letters, blanks, WordFilter.NONE))) {
+                mismatches++;
+            }
+        }
+
+        System.out.println("RackSolver, racks too large for the trie: mismatches [exp:0]: " + mismatches);
+    }
+
+
+    /**
+     * Find the words of a rack by looking up every subset of the rack with the blanks standing
+     * for every choice of letters of the words, the way the words were found before the trie.
+     * A word's blanks are the letters it has more of than the rack.
+     * Returns a line "score: word (blanks: letters)" per word.
+     */
+    private static TreeSet<String> subsetWords(AnagramDictionary dictionary, ScoreTable scoreTable, String letters,
+                                               int blanks, WordFilter filter) {
+
+        Rack rack = new Rack();
+        HashSet<String> words = new HashSet<String>();
+
+        for (String blankLetters : blankChoices(blanks)) {
+            for (String subset : rack.allSubsets(letters + blankLetters)) {
+                words.addAll(dictionary.getAnagramsOf(subset));
+            }
+        }
+
+        ArrayList<RackWord> found = new ArrayList<RackWord>();
+
+        for (String word : words) {
+
+            String blankString = blanksOf(word, letters);
+            int score = scoreTable.getScore(word) - scoreTable.getScore(blankString);
+            int lexicons = filter.getLexicons();
+
+            if (word.length() >= filter.getMinLength() && word.length() <= filter.getMaxLength()
+                    && (filter.getRequiredMask() & ~LetterSignature.mask(word)) == 0
+                    && score >= filter.getMinScore()
+                    && inLexicons(dictionary, word, lexicons)) {
+                found.add(new RackWord(word, blankString, score));
+            }
+        }
+
+        return lines(found);
+    }
+
+
+    /**
+     * Returns true iff a word is in one of some lexicons: the anagrams of the word in those
+     * lexicons include it.
+     */
+    private static boolean inLexicons(AnagramDictionary dictionary, String word, int lexicons) {
+
+        ArrayList<String> anagrams = new ArrayList<String>();
+        dictionary.addAnagramsOf(word, lexicons, anagrams);
+
+        return anagrams.contains(word);
+    }
+
+
+    /**
+     * Returns every multiset of blanks letters of the words, each as a string.
+     */
+    private static ArrayList<String> blankChoices(int blanks) {
+
+        ArrayList<String> choices = new ArrayList<String>();
+        choices.add("");
+
+        for (int b = 0; b < blanks; b++) {
+
+            ArrayList<String> longer = new ArrayList<String>();
+
+            for (String choice : choices) {
+                for (int i = 0; i < WORD_LETTERS.length(); i++) {
+
+                    // letters in order, so every multiset is made once
+                    char c = WORD_LETTERS.charAt(i);
+
+                    if (choice.isEmpty() || choice.charAt(choice.length() - 1) <= c) {
+                        longer.add(choice + c);
+                    }
+                }
+            }
+
+            choices = longer;
+        }
+
+        return choices;
+    }
+
+
+    /**
+     * Returns the letters a word has more of than a rack, in alphabetical order.
+     */
+    private static String blanksOf(String word, String letters) {
+
+        int[] have = new int[128];
+
+        for (int i = 0; i < letters.length(); i++) {
+            have[letters.charAt(i)]++;
+        }
+
+        char[] sorted = word.toCharArray();
+        Arrays.sort(sorted);
+        StringBuilder blankString = new StringBuilder();
+
+        for (int i = 0; i < sorted.length; i++) {
+            if (have[sorted[i]] > 0) {
+                have[sorted[i]]--;
+            } else {
+                blankString.append(sorted[i]);
+            }
+        }
+
+        return blankString.toString();
+    }
+
+
+    /**
+     * Returns a line "score: word (blanks: letters)" per word found, in order.
+     */
+    private static TreeSet<String> lines(ArrayList<RackWord> found) {
+
+        TreeSet<String> lines = new TreeSet<String>();
+
+        for (RackWord w : found) {
+            lines.add(w.getScore() + ": " + w);
+        }
+
+        return lines;
+    }
+
+
+    /**
+     * Returns a rack of random letters, some of which no word has.
+     */
+    private static String randomRack(Random random, int length) {
+
+        StringBuilder rack = new StringBuilder();
+
+        for (int i = 0; i < length; i++) {
+            rack.append((char) ('a' + random.nextInt(WORD_LETTERS.length() + 2)));
+        }
+
+        return rack.toString();
+    }
+
+
+    /**
+     * Returns distinct random words of WORD_LETTERS, 2 to 6 letters long.
+     */
+    private static ArrayList<String> randomWords(Random random, int number) {
+
+        TreeSet<String> words = new TreeSet<String>();
+
+        while (words.size() < number) {
+
+            StringBuilder word = new StringBuilder();
+            int length = 2 + random.nextInt(5);
+
+            for (int i = 0; i < length; i++) {
+                word.append(WORD_LETTERS.charAt(random.nextInt(WORD_LETTERS.length())));
+            }
+
+            words.add(word.toString());
+        }
+
+        return new ArrayList<String>(words);
+    }
+
+
+    /**
+     * Writes words to a temporary file, one per line, deleted when the tester exits.
+     */
+    private static String wordFile(List<String> words) throws IOException {
+
+        File file = File.createTempFile("lexicon", ".txt");
+        file.deleteOnExit();
+
+        try (PrintWriter out = new PrintWriter(file)) {
+            for (String word : words) {
+                out.println(word);
+            }
+        }
+
+        return file.getPath();
+    }
+}
@@ -0,0 +1,82 @@
+/**
+ Keeps the best limit words of a stream of RackWords, ranked by RackWord.BY_RANK (score descending,
+ then word ascending). It is a consumer of words so that a search can pass its words straight to it.
+ The words are kept in a bounded heap whose root is the worst word kept, so adding n words costs
+ O(n log limit) time and O(limit) memory, instead of storing and sorting all n.
+ */
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+public class TopWords implements Consumer<RackWord> {
+
+    private int limit;
+    private PriorityQueue<RackWord> heap;
+    private int seen = 0;
+    // number of words added, kept or not
+
+
+    /**
+     Creates a top-limit keeper with no words yet.
+
+     @param limit  the number of words to keep, at least 1
+     */
+    public TopWords(int limit) {
+        this.limit = limit;
+        heap = new PriorityQueue<RackWord>(limit + 1, Collections.reverseOrder(RackWord.BY_RANK));
+    }
+
+
+    /**
+     Offer a word; it is kept iff it ranks among the best limit words added so far.
+
+     @param w  the word to offer
+     */
+    @Override
+    public void accept(RackWord w) {
+
+        seen++;
+
+        if (heap.size() < limit) {
+            heap.offer(w);
+        } else if (RackWord.BY_RANK.compare(w, heap.peek()) < 0) {
+            heap.poll(); // drop the worst word kept to make room for w
+            heap.offer(w);
+        }
+    }
+
+
+    /**
+     Get the number of words added, including the ones that were not kept.
+
+     @return  the number of words added
+     */
+    public int seen() {
+        return seen;
+    }
+
+
+    /**
+     Get the words kept, best first.
+
+     @return  a new list of at most limit words, sorted by RackWord.BY_RANK
+     */
+    public ArrayList<RackWord> sorted() {
+
+        ArrayList<RackWord> result = new ArrayList<RackWord>(heap);
+        Collections.sort(result, RackWord.BY_RANK);
+
+        return result;
+    }
+
+
+    /**
+     Get the number of words kept.
+
+     @return  the number of words kept, at most limit
+     */
+    public int size() {
+        return heap.size();
+    }
+}
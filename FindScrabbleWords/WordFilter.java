@@ -0,0 +1,125 @@
+/**
+ Constraints on the words a rack search finds: a shortest and a longest length, letters that every
+ word must contain, a lowest score, and the lexicons of the dictionary to take words from. The
+ searches of RackSolver take them into account as they go, skipping every part of the search that
+ cannot lead to a word that passes, so a tight filter makes a search cheaper rather than leaving
+ more words to throw away afterwards.
+ A filter never changes after it is created.
+ */
+public class WordFilter {
+
+    public static final WordFilter NONE = new WordFilter(0, Integer.MAX_VALUE, "", Integer.MIN_VALUE);
+    // the filter every word passes
+
+    private int minLength;
+    private int maxLength;
+    private int requiredMask;
+    // the letter-presence mask of the letters every word must contain, bit 0 for 'a'
+    private int minScore;
+    private int lexicons;
+    // the mask of the lexicons, bit j for lexicon j of the dictionary
+
+
+    /**
+     Creates a filter.
+
+     @param minLength  the length of the shortest words to find
+     @param maxLength  the length of the longest words to find
+     @param required  the letters every word must contain, 'a' to 'z'; "" for none
+     @param minScore  the score of the lowest scoring words to find
+
+     @throws IllegalArgumentException  if required has a char that is not a letter 'a' to 'z'
+     */
+    public WordFilter(int minLength, int maxLength, String required, int minScore) {
+        this(minLength, maxLength, required, minScore, AnagramDictionary.ALL_LEXICONS);
+    }
+
+
+    /**
+     Creates a filter that also chooses the lexicons of a dictionary of several lexicons.
+
+     @param minLength  the length of the shortest words to find
+     @param maxLength  the length of the longest words to find
+     @param required  the letters every word must contain, 'a' to 'z'; "" for none
+     @param minScore  the score of the lowest scoring words to find
+     @param lexicons  the mask of the lexicons to find words in, bit j for lexicon j
+
+     @throws IllegalArgumentException  if required has a char that is not a letter 'a' to 'z'
+     */
+    public WordFilter(int minLength, int maxLength, String required, int minScore, int lexicons) {
+
+        for (int i = 0; i < required.length(); i++) {
+            if (!LetterSignature.isLetter(required.charAt(i))) {
+                throw new IllegalArgumentException("Not a letter: " + required.charAt(i));
+            }
+        }
+
+        this.minLength = Math.max(0, minLength);
+        this.maxLength = maxLength;
+        this.minScore = minScore;
+        this.lexicons = lexicons;
+        requiredMask = LetterSignature.mask(required);
+    }
+
+
+    public int getMinLength() { return minLength; }
+    public int getMaxLength() { return maxLength; }
+    public int getRequiredMask() { return requiredMask; }
+    public int getMinScore() { return minScore; }
+    public int getLexicons() { return lexicons; }
+
+
+    /**
+     Returns true iff every word passes the filter.
+     */
+    public boolean isEmpty() {
+        return minLength == 0 && maxLength == Integer.MAX_VALUE && requiredMask == 0 && minScore == Integer.MIN_VALUE
+                && lexicons == AnagramDictionary.ALL_LEXICONS;
+    }
+
+
+    /**
+     Returns true iff the words made of some letters may pass the filter, judging by their
+     letter-presence mask and number only; the score is not checked.
+
+     @param mask  the letter-presence mask of the letters
+     @param length  the number of letters
+
+     @return  true iff words of that length with those letters pass the length and letter checks
+     */
+    public boolean acceptsLetters(int mask, int length) {
+        return length >= minLength && length <= maxLength && (requiredMask & ~mask) == 0;
+    }
+
+
+    /**
+     Returns a canonical description of the filter, so that equal filters have equal strings,
+     e.g. "2-7 +qz >=20 @3".
+     */
+    @Override
+    public String toString() {
+
+        StringBuilder s = new StringBuilder();
+        s.append(minLength).append('-').append(maxLength == Integer.MAX_VALUE ? "" : Integer.toString(maxLength));
+
+        if (requiredMask != 0) {
+            s.append(" +");
+
+            for (int i = 0; i < LetterSignature.ALPHABET_SIZE; i++) {
+                if ((requiredMask & (1 << i)) != 0) {
+                    s.append((char) ('a' + i));
+                }
+            }
+        }
+
+        if (minScore != Integer.MIN_VALUE) {
+            s.append(" >=").append(minScore);
+        }
+
+        if (lexicons != AnagramDictionary.ALL_LEXICONS) {
+            s.append(" @").append(Integer.toHexString(lexicons));
+        }
+
+        return s.toString();
+    }
+}
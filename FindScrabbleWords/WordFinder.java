@@ -1,70 +1,379 @@
 /**
  A console-based program that finds all possible words that can be made from a rack of Scrabble tiles.
+ A blank tile is typed as '?' or '_'; the letters blanks stand for score zero.
  Taking an optional command-line argument for the dictionary file name. If that argument is left off,
  it will use the Scrabble dictionary file sowpods.txt. If the dictionary file does not exist, responsing
  an error message and exit.
-
- Note: common format is as following. java WordFinder [dictionaryFile]
+ The anagram dictionary is saved next to the dictionary file in a binary snapshot (dictionaryFile.snapshot),
+ so later runs open it without rebuilding it. The snapshot is rebuilt whenever the dictionary file changes.
+
+ command-line argument -batch solves racks read one per line from standard input with no prompts,
+ on all the cores, and writes the results in input order (see BatchSolver).
+ command-line argument -racks rackFile does the same with the racks in rackFile.
+ command-line argument -threads n sets the number of threads of the batch mode.
+ command-line argument -top k only lists the best k words of every rack, by score and then alphabetically.
+ command-line argument -cache n keeps the results of the last n racks, so a rack that repeats or is a
+ permutation of one of them is answered from the cache; its counters are printed when the program ends.
+ command-line argument -scores scoreFile scores letters with the values in scoreFile (see ScoreTable)
+ instead of the English tile values.
+ command-line argument -watch reloads the dictionary file whenever it changes, while racks are being solved;
+ only the words that changed are applied (see LiveDictionary), and every reload is reported on standard error.
+ The result cache starts over on every reload.
+ command-line argument -board boardFile reads a board (see Board) and, instead of the words of every rack,
+ prints every move the rack can play on the board with its score (see MoveGenerator).
+ command-line arguments -minlength n, -maxlength n, -require letters and -minscore n only find the words of at
+ least n letters, of at most n letters, with all of the given letters, or scoring at least n (see WordFilter);
+ the search skips whatever cannot lead to such words, so the tighter the constraints the faster it is.
+ Several dictionary files can be given: each is a lexicon of one dictionary that holds them all (see
+ AnagramDictionary), and words are found in any of them unless -lexicons fileName,fileName,... chooses some.
+ Such a dictionary has no snapshot and cannot be watched.
+ command-line argument -format plain|tsv|json writes the words of every rack as the usual report (plain), as a
+ tab-separated line per word, or as a JSON object per rack (see ResultWriter). Results are written in large
+ blocks rather than line by line.
+ command-line argument -metrics n records what every query costs: the subsets of the rack searched, the
+ dictionary lookups and those that found words, the words found, and the time spent searching, ranking and
+ printing (see QueryMetrics). A summary of the last n seconds is printed to standard error every n seconds
+ (never if n is 0) and a summary of the whole run at the end; the metrics can also be read over JMX.
+ command-line argument -serve port loads the dictionary once and answers racks sent over TCP connections to
+ port on this machine, on all the cores, instead of reading them from the console (see RackServer); the
+ answers can be timed with RackLoad. It serves until the program is stopped.
+
+ Note: common format is as following.
+ java WordFinder [-batch] [-racks rackFile] [-threads n] [-top k] [-cache n]
+     [-scores scoreFile] [-watch] [-board boardFile] [-format f] [-serve port]
+     [-minlength n] [-maxlength n] [-require letters] [-minscore n] [-lexicons files] [-metrics n]
+     [dictionaryFile ...]
  */
+import java.io.BufferedReader;
+import java.io.FileDescriptor;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
 import java.util.ArrayList;
-import java.util.Map;
-import java.util.TreeMap;
 import java.util.Scanner;
-import java.util.Collections;
+import javax.management.JMException;
 
 public class WordFinder {
 
+    private static final String SNAPSHOT_SUFFIX = ".snapshot";
+    // the snapshot of a dictionary file is saved under the file name plus this suffix
+
+    private static final int REORDER_WINDOW_PER_THREAD = 64;
+    // racks in flight per thread in batch mode
+
+    private static final long WATCH_INTERVAL_MILLIS = 1000;
+    // how often the dictionary file is checked for changes with -watch
+
+    private static final String USAGE = "Usage: java WordFinder [-batch] [-racks rackFile] [-threads n] [-top k]"
+            + " [-cache n] [-scores scoreFile] [-watch] [-board boardFile] [-format f] [-serve port]"
+            + " [-minlength n] [-maxlength n] [-require letters] [-minscore n] [-lexicons files] [-metrics n]"
+            + " [dictionaryFile ...]";
+
     public static void main(String[] args) {
 
-        String fileName = null;
+        ArrayList<String> fileNames = new ArrayList<String>();
+        String lexiconNames = null;
+        String rackFile = null;
+        String scoreFile = null;
+        String boardFile = null;
+        int limit = 0;
+        int cacheSize = 0;
+        int port = -1;
+        int metricsSeconds = -1;
+        int minLength = 0;
+        int maxLength = Integer.MAX_VALUE;
+        int minScore = Integer.MIN_VALUE;
+        String required = "";
+        ResultWriter.Format format = ResultWriter.Format.PLAIN;
+        boolean batch = false;
+        boolean watch = false;
+        int threads = Runtime.getRuntime().availableProcessors();
+
+        // check command-line arguments for the batch mode; the other argument is the dictionary file
+        for (int i = 0; i < args.length; i++) {
+            try
+            {
+                if (args[i].equals("-batch")) {
+                    batch = true;
+                }
+                else if (args[i].equals("-watch")) {
+                    watch = true;
+                }
+                else if (args[i].equals("-racks") && i + 1 < args.length) {
+                    batch = true;
+                    rackFile = args[++i];
+                }
+                else if (args[i].equals("-top") && i + 1 < args.length) {
+                    limit = Math.max(0, Integer.parseInt(args[++i]));
+                }
+                else if (args[i].equals("-cache") && i + 1 < args.length) {
+                    cacheSize = Math.max(0, Integer.parseInt(args[++i]));
+                }
+                else if (args[i].equals("-scores") && i + 1 < args.length) {
+                    scoreFile = args[++i];
+                }
+                else if (args[i].equals("-board") && i + 1 < args.length) {
+                    boardFile = args[++i];
+                }
+                else if (args[i].equals("-minlength") && i + 1 < args.length) {
+                    minLength = Integer.parseInt(args[++i]);
+                }
+                else if (args[i].equals("-maxlength") && i + 1 < args.length) {
+                    maxLength = Integer.parseInt(args[++i]);
+                }
+                else if (args[i].equals("-require") && i + 1 < args.length) {
+                    required = args[++i].toLowerCase();
+                }
+                else if (args[i].equals("-minscore") && i + 1 < args.length) {
+                    minScore = Integer.parseInt(args[++i]);
+                }
+                else if (args[i].equals("-format") && i + 1 < args.length) {
+                    try
+                    {
+                        format = ResultWriter.format(args[++i]);
+                    }
+
+                    catch(IllegalArgumentException exception)
+                    {
+                        System.out.println("Unknown format: " + args[i]);
+                        return;
+                    }
+                }
+                else if (args[i].equals("-serve") && i + 1 < args.length) {
+                    port = Integer.parseInt(args[++i]);
+                }
+                else if (args[i].equals("-metrics") && i + 1 < args.length) {
+                    metricsSeconds = Math.max(0, Integer.parseInt(args[++i]));
+                }
+                else if (args[i].equals("-lexicons") && i + 1 < args.length) {
+                    lexiconNames = args[++i];
+                }
+                else if (args[i].equals("-threads") && i + 1 < args.length) {
+                    threads = Math.max(1, Integer.parseInt(args[++i]));
+                }
+                else {
+                    fileNames.add(args[i]);
+                }
+            }
+
+            // every option that takes a number has just read it
+            catch(NumberFormatException exception)
+            {
+                System.out.println("ERROR: " + args[i - 1] + " takes a whole number, not " + args[i]);
+                System.out.println(USAGE);
+                return;
+            }
+        }
+
+        if (fileNames.isEmpty()) {
+            fileNames.add("sowpods.txt");
+        }
+
+        String fileName = fileNames.get(0);
+
+        if (watch && fileNames.size() > 1) {
+            System.out.println("Cannot watch several dictionary files");
+            return;
+        }
+
+        // the lexicons to find words in, by the index of their files
+        int lexicons = AnagramDictionary.ALL_LEXICONS;
+
+        if (lexiconNames != null) {
+            lexicons = 0;
+
+            for (String name : lexiconNames.split(",")) {
+
+                if (!fileNames.contains(name)) {
+                    System.out.println("Not a dictionary file: " + name);
+                    return;
+                }
+
+                lexicons |= 1 << fileNames.indexOf(name);
+            }
+        }
+
+        WordFilter filter;
+
+        try
+        {
+            filter = new WordFilter(minLength, maxLength, required, minScore, lexicons);
+        }
+
+        catch(IllegalArgumentException exception)
+        {
+            System.out.println("Cannot require letters: " + exception.getMessage());
+            return;
+        }
 
         // If that argument is left off, it will use the Scrabble dictionary file sowpods.txt.
         // If the dictionary file does not exist, responsing an error message and exit.
+        ScoreTable st = new ScoreTable();
+        AnagramDictionary ad;
+
+        try
+        {
+            if (scoreFile != null) {
+                st = new ScoreTable(scoreFile);
+            }
+        }
+
+        catch(IOException exception)
+        {
+            System.out.println("Cannot read scores: " + exception.getMessage());
+            return;
+        }
+
         try
         {
-            if (args.length == 0) {
-                fileName = "sowpods.txt";
-                scrabble(fileName);
+            if (fileNames.size() == 1) {
+                ad = AnagramDictionary.open(fileName, fileName + SNAPSHOT_SUFFIX, st);
             } else {
-                fileName = args[0];
-                scrabble(fileName);
+                ad = new AnagramDictionary(fileNames.toArray(new String[0]), st);
             }
         }
 
         catch(FileNotFoundException exception)
         {
-            System.out.println("File not found: " + fileName);
+            System.out.println("File not found: " + String.join(" ", fileNames));
+            return;
+        }
+
+        catch(IOException exception)
+        {
+            System.out.println("Cannot read file: " + String.join(" ", fileNames));
+            return;
+        }
+
+        catch(IllegalArgumentException exception)
+        {
+            System.out.println("Cannot read files: " + exception.getMessage());
+            return;
+        }
+
+        if (boardFile != null) {
+            Board board;
+
+            try
+            {
+                board = new Board(boardFile);
+            }
+
+            catch(IOException exception)
+            {
+                System.out.println("Cannot read board: " + exception.getMessage());
+                return;
+            }
+
+            playBoard(new MoveGenerator(ad, lexicons), board, limit);
+            return;
+        }
+
+        QueryMetrics metrics = null;
+
+        if (metricsSeconds >= 0) {
+            metrics = new QueryMetrics();
+
+            try
+            {
+                metrics.register();
+            }
+
+            catch(JMException exception)
+            {
+                System.err.println("Cannot register metrics: " + exception.getMessage());
+            }
+
+            if (metricsSeconds > 0) {
+                metrics.report(metricsSeconds * 1000L, System.err);
+            }
+        }
+
+        LiveDictionary live = new LiveDictionary(ad, cacheSize, metrics);
+
+        try
+        {
+            if (watch) {
+                live.watch(fileName, WATCH_INTERVAL_MILLIS, System.err);
+            }
+        }
+
+        catch(IOException exception)
+        {
+            System.out.println("Cannot read file: " + fileName);
+            return;
+        }
+
+        if (port >= 0) {
+            try
+            {
+                serve(live, port, threads, limit, filter);
+            }
+
+            catch(IOException exception)
+            {
+                System.out.println("Cannot serve on port " + port + ": " + exception.getMessage());
+            }
+        } else {
+            // the results bypass System.out, whose lock and line flushing would slow them down
+            ResultWriter out = new ResultWriter(new FileOutputStream(FileDescriptor.out), format);
+
+            try
+            {
+                if (!batch) {
+                    scrabble(live, limit, filter, out, format);
+                } else {
+                    batchScrabble(live, rackFile, threads, limit, filter, out);
+                }
+            }
+
+            catch(IOException exception)
+            {
+                System.out.println("Cannot read racks or write words: " + exception.getMessage());
+            }
+        }
+
+        if (live.get().getCache() != null) {
+            System.err.println(live.get().getCache());
+        }
+
+        if (metrics != null) {
+            System.err.println(metrics);
         }
     }
 
 
     /**
-     Create an anagram dictionary from a given dictionary file. Find all subsets of
-     a given rack and match them with the anagram dictionary. Print the result with
-     scores got from score table.
+     Repeat asking for a rack and print all words that can be made from it with scores got from
+     score table, until the user types in ".".
 
-     @param fileName  the name of the dictionary to read from
+     @param live  the anagram dictionary, whose current version solves every rack
+     @param limit  the number of best words to print, or 0 to print them all
+     @param filter  the words to find
+     @param out  where the words are written, and the prompts in the PLAIN format
+     @param format  the format of out; in the TSV and JSON formats, which are for programs to read,
+     the prompts are written to System.err so they do not get in the records
 
-     @throws FileNotFoundException  if the file is not found
+     @throws IOException  if the words cannot be written
      */
-    private static void scrabble(String fileName) throws FileNotFoundException {
+    private static void scrabble(LiveDictionary live, int limit, WordFilter filter, ResultWriter out,
+            ResultWriter.Format format) throws IOException {
+
+        boolean plain = format == ResultWriter.Format.PLAIN;
 
-        AnagramDictionary ad = new AnagramDictionary(fileName);
-        Rack rack = new Rack();
         Scanner in = new Scanner(System.in);
         String target = null;
-        String filterTarget = null;
         boolean isOver = false;
 
-        System.out.println("Type . to quit.");
+        prompt("Type . to quit.\n", plain, out);
 
         // Repeat asking for a rack if players do not type in "." to exit
         while(!isOver) {
 
-            System.out.print("Rack? ");
+            prompt("Rack? ", plain, out);
             target = in.next(); // users type in a rack
-            filterTarget = target.replaceAll("[^a-zA-Z]+", ""); // ignore any non-letter components on a rack
 
             if (target.equals(".")) {
 
@@ -72,79 +381,134 @@ public class WordFinder {
 
             } else {
 
-                ArrayList<String> subsets = rack.allSubsets(filterTarget); // find all subsets of a rack
-                ArrayList<String> result = new ArrayList<String>();
-
-                for (int i = 0; i < subsets.size(); i++) {
+                String filterTarget = RackSolver.filter(target);
+                RackSolver solver = live.get();
+                ResultCache.Result result = solver.rank(filterTarget, limit, filter);
+                QueryMetrics metrics = solver.getMetrics();
+                long start = metrics == null ? 0 : System.nanoTime();
 
-                    ArrayList<String> temp = new ArrayList<String>();
-                    temp = ad.getAnagramsOf(subsets.get(i)); // find anagrams from a subset of a rack
+                out.write(filterTarget, result, limit);
 
-                    for (int j = 0; j < temp.size(); j++) {
-                        result.add(temp.get(j));
-                    }
+                if (metrics != null) {
+                    metrics.printed(System.nanoTime() - start);
                 }
 
-                System.out.println("We can make " + result.size() + " words from " + "\"" + filterTarget + "\"");
-
-                // no result to print out, keep asking for a rack
-                if (result.size() == 0) {
-                    continue;
-                }
-
-                System.out.println("All of the words with their scores (sorted by score):");
-                printResult(result);
-
             }
         }
 
+        out.flush();
+
         in.close();
     }
 
+
     /**
-     Print out all the anagrams of all subsets of a rack in descending order of scores
-     and then ascending order of anagrans if the scores are the same
+     Write a prompt and flush it, and the words before it, so the user sees them.
+
+     @param text  the prompt
+     @param plain  true to write the prompt to out, false to write it to System.err
+     @param out  where the words are written
 
-     @param result  a list of all the anagrams of all subsets of a rack without correctly ordering
+     @throws IOException  if the words cannot be written
      */
-    private static void printResult(ArrayList<String> result) {
+    private static void prompt(String text, boolean plain, ResultWriter out) throws IOException {
+
+        if (plain) {
+            out.write(text);
+            out.flush();
+        } else {
+            out.flush();
+            System.err.print(text);
+            System.err.flush();
+        }
+    }
 
-        // use a TreeMap to store scores in key and a list of anagrams in value
-        // Because TreeMap's defalut ordering is ascending, we have to change to
-        // descending as we want ordering the result by scores in descending order.
-        Map<Integer, ArrayList<String>> orderResult = new TreeMap<Integer, ArrayList<String>>(Collections.reverseOrder());
-        ArrayList<String> temp = new ArrayList<String>();
-        ScoreTable st = new ScoreTable();
 
-        // find every anagrams's scores and put the anagrams with the same scores into the list mapping the same key
-        for (int i = 0; i < result.size(); i++) {
+    /**
+     Repeat asking for a rack and print all the moves it can play on a board with their scores,
+     until the user types in ".".
 
-            int score = st.getScore(result.get(i));
+     @param generator  the move generator of the anagram dictionary
+     @param board  the board to play on
+     @param limit  the number of best moves to print, or 0 to print them all
+     */
+    private static void playBoard(MoveGenerator generator, Board board, int limit) {
 
+        Scanner in = new Scanner(System.in);
+        String target = null;
+        boolean isOver = false;
 
-            if (orderResult.containsKey(score)) {
+        System.out.print(board);
+        System.out.println("Type . to quit.");
+
+        // Repeat asking for a rack if players do not type in "." to exit
+        while(!isOver) {
+
+            System.out.print("Rack? ");
+            target = in.next(); // users type in a rack
+
+            if (target.equals(".")) {
 
-                temp = orderResult.get(score);
-                temp.add(result.get(i));
+                isOver = true;
 
             } else {
 
-                temp = new ArrayList<String>();
-                temp.add(result.get(i));
+                System.out.print(generator.report(board, RackSolver.filter(target), limit));
+
             }
+        }
+
+        in.close();
+    }
+
+
+    /**
+     Solve all the racks of a rack file, or of standard input if rackFile is null, in parallel and
+     print the results in input order.
+
+     @param live  the anagram dictionary, whose current version solves every rack
+     @param rackFile  the name of the file of racks, one per line, or null
+     @param threads  the number of threads to solve racks on
+     @param limit  the number of best words to print per rack, or 0 to print them all
+     @param filter  the words to find
+     @param out  where the words are written
+
+     @throws FileNotFoundException  if the rack file is not found
+     @throws IOException  if the racks cannot be read or the words cannot be written
+     */
+    private static void batchScrabble(LiveDictionary live, String rackFile, int threads, int limit,
+            WordFilter filter, ResultWriter out) throws IOException {
 
-            orderResult.put(score, temp);
+        BufferedReader in;
+
+        if (rackFile == null) {
+            in = new BufferedReader(new InputStreamReader(System.in));
+        } else {
+            in = new BufferedReader(new FileReader(rackFile));
         }
 
-        for (Map.Entry<Integer, ArrayList<String>> entry : orderResult.entrySet()) {
+        new BatchSolver(live, threads, threads * REORDER_WINDOW_PER_THREAD, limit, filter).run(in, out);
+        in.close();
+    }
 
-            ArrayList<String> sameScore = entry.getValue();
-            Collections.sort(sameScore); // order the list of the anagrams with same scores by alphabet in descending order
 
-            // print out the result
-            for (int i = 0; i < sameScore.size(); i++) {
-                System.out.println(entry.getKey() + ": " + sameScore.get(i));
-            }
+    /**
+     Answer the racks sent to a port of this machine until the program is stopped.
+
+     @param live  the anagram dictionary, whose current version solves every rack
+     @param port  the port to listen on
+     @param threads  the number of threads to solve racks on
+     @param limit  the number of best words to print per rack, or 0 to print them all
+     @param filter  the words to find
+
+     @throws IOException  if the port cannot be listened on
+     */
+    private static void serve(LiveDictionary live, int port, int threads, int limit, WordFilter filter)
+            throws IOException {
+
+        try (RackServer server = new RackServer(live, threads, limit, filter, port)) {
+            System.err.println("Serving racks on port " + server.getPort() + " on " + threads + " threads");
+            server.run();
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,393 @@
+/**
+ A directed acyclic word graph (DAWG) of the words of an AnagramDictionary: the letter trie of the
+ words with equal subtrees merged, so words that end the same way share the nodes of their endings.
+ It is what the board move generator walks to spell words left to right across the board.
+ The graph is built in one pass over the words in alphabetical order: once a word has been added,
+ the nodes of the previous word below the prefix they share are finished, and each finished node
+ is replaced by an equal node already in the graph if there is one.
+ Every node is a bit mask of the letters it has an edge on (bit 0 for 'a') plus a bit telling if
+ the path to it spells a word; its edges are stored together in letter order, so the child of a
+ node on a letter is found in constant time by counting the mask bits below the letter.
+ The graph is immutable once built and can be walked by several threads at once.
+ */
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+public class WordGraph {
+
+    public static final int NONE = -1;
+    // the node of a path that spells no prefix of a word
+
+    public static final int ALL_LETTERS = LetterSignature.ALL_LETTERS;
+    // the mask of every letter
+
+    private static final int WORD_BIT = 1 << LetterSignature.ALPHABET_SIZE;
+    // set in the mask of a node iff the path to it spells a word
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    // mask[node] has the letters of the edges of node and WORD_BIT; the edges of node are
+    // target[firstEdge[node]], target[firstEdge[node] + 1], ... in letter order
+    private int[] mask;
+    private int[] firstEdge;
+    private int[] target;
+    private int numNodes;
+    private int numEdges;
+    private int root;
+
+    // open-addressing table of the finished nodes, used to find a node equal to a new one;
+    // slots hold node + 1, 0 being an empty slot
+    private int[] slots;
+
+
+    /**
+     Build the graph of the words of a dictionary that are made of the letters 'a' to 'z' only.
+
+     @param dictionary  the dictionary of the words
+     */
+    public WordGraph(AnagramDictionary dictionary) {
+        this(dictionary, AnagramDictionary.ALL_LEXICONS);
+    }
+
+
+    /**
+     Build the graph of the words of some lexicons of a dictionary that are made of the letters
+     'a' to 'z' only.
+
+     @param dictionary  the dictionary of the words
+     @param lexicons  the mask of the lexicons of the words, bit j for lexicon j
+     */
+    public WordGraph(AnagramDictionary dictionary, int lexicons) {
+
+        ArrayList<String> words = new ArrayList<String>(dictionary.numWords());
+
+        for (int i = 0; i < dictionary.numWords(); i++) {
+            if ((dictionary.wordLexicons(i) & lexicons) != 0) {
+                words.add(dictionary.word(i));
+            }
+        }
+
+        Collections.sort(words);
+
+        mask = new int[INITIAL_CAPACITY];
+        firstEdge = new int[INITIAL_CAPACITY];
+        target = new int[INITIAL_CAPACITY];
+        slots = new int[INITIAL_CAPACITY];
+        numNodes = 0;
+        numEdges = 0;
+
+        Builder builder = new Builder();
+
+        for (int i = 0; i < words.size(); i++) {
+            builder.add(words.get(i));
+        }
+
+        root = builder.finish();
+        slots = null; // only needed while building
+
+        mask = Arrays.copyOf(mask, numNodes);
+        firstEdge = Arrays.copyOf(firstEdge, numNodes);
+        target = Arrays.copyOf(target, numEdges);
+    }
+
+
+    /**
+     Get the node of the empty prefix.
+
+     @return  the root node
+     */
+    public int root() {
+        return root;
+    }
+
+
+    /**
+     Follow the edge of a node on a letter.
+
+     @param node  a node of the graph
+     @param letter  the letter, 0 for 'a'
+
+     @return  the node of the prefix of node followed by letter, or NONE if no word starts that way
+     */
+    public int child(int node, int letter) {
+
+        int m = mask[node];
+        int bit = 1 << letter;
+
+        if ((m & bit) == 0) {
+            return NONE;
+        }
+
+        return target[firstEdge[node] + Integer.bitCount(m & (bit - 1))];
+    }
+
+
+    /**
+     Get the letters that can follow the prefix of a node.
+
+     @param node  a node of the graph
+
+     @return  the mask of the letters of the edges of node, bit 0 for 'a'
+     */
+    public int letters(int node) {
+        return mask[node] & ALL_LETTERS;
+    }
+
+
+    /**
+     Returns true iff the prefix of a node is a word.
+
+     @param node  a node of the graph
+
+     @return  true iff the path to node spells a word
+     */
+    public boolean isWord(int node) {
+        return (mask[node] & WORD_BIT) != 0;
+    }
+
+
+    /**
+     Follow the letters of a string from a node. Upper case letters are followed as their
+     lower case letters, since that is how blank tiles are written on a board.
+
+     @param node  the node to start from
+     @param s  the letters to follow
+
+     @return  the node of the prefix of node followed by s, or NONE if no word starts that way
+     */
+    public int walk(int node, CharSequence s) {
+
+        for (int i = 0; i < s.length() && node != NONE; i++) {
+
+            int letter = Character.toLowerCase(s.charAt(i)) - 'a';
+
+            if (letter < 0 || letter >= LetterSignature.ALPHABET_SIZE) {
+                return NONE;
+            }
+
+            node = child(node, letter);
+        }
+
+        return node;
+    }
+
+
+    /**
+     Returns true iff a string is a word of the graph.
+
+     @param s  the string to look up
+
+     @return  true iff s is a word
+     */
+    public boolean contains(CharSequence s) {
+
+        int node = walk(root, s);
+
+        return node != NONE && isWord(node);
+    }
+
+
+    /**
+     Get the number of nodes of the graph.
+
+     @return  the number of nodes
+     */
+    public int size() {
+        return numNodes;
+    }
+
+
+    /**
+     Add a finished node to the graph, or find a node of the graph equal to it.
+
+     @param nodeMask  the letters of the node and WORD_BIT
+     @param targets  the nodes its edges lead to, in letter order
+
+     @return  the node
+     */
+    private int intern(int nodeMask, int[] targets) {
+
+        int numTargets = Integer.bitCount(nodeMask & ALL_LETTERS);
+        int tableMask = slots.length - 1;
+        int slot = hash(nodeMask, targets, 0) & tableMask;
+
+        for (; slots[slot] != 0; slot = (slot + 1) & tableMask) {
+
+            int node = slots[slot] - 1;
+
+            if (mask[node] == nodeMask && sameEdges(node, targets, numTargets)) {
+                return node;
+            }
+        }
+
+        // a new node
+        if (numNodes == mask.length) {
+            mask = Arrays.copyOf(mask, numNodes * 2);
+            firstEdge = Arrays.copyOf(firstEdge, numNodes * 2);
+        }
+
+        while (numEdges + numTargets > target.length) {
+            target = Arrays.copyOf(target, target.length * 2);
+        }
+
+        int node = numNodes++;
+        mask[node] = nodeMask;
+        firstEdge[node] = numEdges;
+        System.arraycopy(targets, 0, target, numEdges, numTargets);
+        numEdges += numTargets;
+        slots[slot] = node + 1;
+
+        if (numNodes * 2 > slots.length) {
+            rehash(slots.length * 2);
+        }
+
+        return node;
+    }
+
+
+    private boolean sameEdges(int node, int[] targets, int numTargets) {
+
+        for (int i = 0; i < numTargets; i++) {
+            if (target[firstEdge[node] + i] != targets[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+
+    /**
+     Hash a node from its mask and the targets of its edges, targets[from], targets[from + 1], ...
+     The bits are mixed well since linear probing clusters on hashes that are close to each other.
+     */
+    private static int hash(int nodeMask, int[] targets, int from) {
+
+        int h = nodeMask;
+        int numTargets = Integer.bitCount(nodeMask & ALL_LETTERS);
+
+        for (int i = from; i < from + numTargets; i++) {
+            h = (h + targets[i]) * 0x9E3779B9;
+        }
+
+        return h ^ (h >>> 16);
+    }
+
+
+    private void rehash(int capacity) {
+
+        int[] old = slots;
+        slots = new int[capacity];
+        int tableMask = capacity - 1;
+
+        for (int i = 0; i < old.length; i++) {
+            if (old[i] != 0) {
+
+                int node = old[i] - 1;
+                int slot = hash(mask[node], target, firstEdge[node]) & tableMask;
+
+                while (slots[slot] != 0) {
+                    slot = (slot + 1) & tableMask;
+                }
+
+                slots[slot] = old[i];
+            }
+        }
+    }
+
+
+    /**
+     Adds words in alphabetical order. It keeps the unfinished nodes of the last word added, one
+     per prefix length; the last edge of each of them leads to the next one, the others lead to
+     finished nodes of the graph.
+     */
+    private class Builder {
+
+        private String last = "";
+
+        // pendingMask[d] and pendingTargets[d] are the node of the prefix of length d of the last word
+        private int[] pendingMask = new int[1];
+        private int[][] pendingTargets = { new int[LetterSignature.ALPHABET_SIZE] };
+
+
+        /**
+         Add a word.
+
+         @param word  the word, not before the last word added in alphabetical order
+         */
+        void add(String word) {
+
+            for (int i = 0; i < word.length(); i++) {
+                if (!LetterSignature.isLetter(word.charAt(i))) {
+                    return; // cannot be played on a board
+                }
+            }
+
+            int common = 0;
+
+            while (common < word.length() && common < last.length() && word.charAt(common) == last.charAt(common)) {
+                common++;
+            }
+
+            if (common == word.length() && common == last.length()) {
+                return; // the same word again
+            }
+
+            finishDownTo(common);
+            grow(word.length() + 1);
+
+            // the new nodes of the rest of word
+            for (int d = common; d < word.length(); d++) {
+                pendingMask[d] |= 1 << (word.charAt(d) - 'a');
+                pendingMask[d + 1] = 0;
+            }
+
+            pendingMask[word.length()] |= WORD_BIT;
+            last = word;
+        }
+
+
+        /**
+         Finish all the nodes.
+
+         @return  the root
+         */
+        int finish() {
+            finishDownTo(0);
+            return intern(pendingMask[0], pendingTargets[0]);
+        }
+
+
+        /**
+         Finish the nodes of the last word whose prefix is longer than depth, deepest first, and
+         link each to the node above it.
+         */
+        private void finishDownTo(int depth) {
+
+            for (int d = last.length(); d > depth; d--) {
+
+                int node = intern(pendingMask[d], pendingTargets[d]);
+                int numTargets = Integer.bitCount(pendingMask[d - 1] & ALL_LETTERS);
+
+                // the node of prefix d is the last edge of the node above
+                pendingTargets[d - 1][numTargets - 1] = node;
+            }
+        }
+
+
+        private void grow(int depths) {
+
+            if (depths > pendingMask.length) {
+
+                int old = pendingMask.length;
+                pendingMask = Arrays.copyOf(pendingMask, depths);
+                pendingTargets = Arrays.copyOf(pendingTargets, depths);
+
+                for (int d = old; d < depths; d++) {
+                    pendingTargets[d] = new int[LetterSignature.ALPHABET_SIZE];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ The word finder side of scrabble.ScrabbleOps: lets the benchmarks, which JMH requires to be in a
+ named package, call the word finder classes of the default package.
+ */
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import scrabble.ScrabbleOps;
+
+public class BenchmarkOps implements ScrabbleOps {
+
+    private AnagramDictionary ad;
+    private RackSolver solver;
+    private Rack rack = new Rack();
+    private ScoreTable st = new ScoreTable();
+    private MoveGenerator generator;
+    private Board board;
+
+    @Override
+    public void open(String fileName) throws IOException {
+        ad = new AnagramDictionary(fileName);
+        solver = new RackSolver(ad);
+    }
+
+    @Override
+    public Object buildDictionary(String fileName) throws IOException {
+        return new AnagramDictionary(fileName);
+    }
+
+    @Override
+    public int getAnagramsOf(String s) {
+        return ad.getAnagramsOf(s).size();
+    }
+
+    @Override
+    public int allSubsets(String s) {
+        return rack.allSubsets(s).size();
+    }
+
+    @Override
+    public List<String> subsetsOf(String s) {
+        return rack.allSubsets(s);
+    }
+
+    @Override
+    public int getScore(String word) {
+        return st.getScore(word);
+    }
+
+    @Override
+    public int findWords(String s) {
+        return solver.findWords(s).size();
+    }
+
+    @Override
+    public int report(String s) {
+        return solver.report(s).length();
+    }
+
+    @Override
+    public void openBoard(String[] racks) {
+
+        generator = new MoveGenerator(ad);
+        board = new Board();
+
+        for (int i = 0; i < racks.length; i++) {
+
+            ArrayList<Move> moves = generator.generate(board, racks[i]);
+
+            if (!moves.isEmpty()) {
+                board.place(Collections.min(moves, Move.BY_RANK));
+            }
+        }
+    }
+
+    @Override
+    public int generateMoves(String s) {
+        return generator.generate(board, s).size();
+    }
+}
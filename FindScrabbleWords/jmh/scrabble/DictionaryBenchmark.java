@@ -0,0 +1,48 @@
+package scrabble;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ Time to build an AnagramDictionary from a word file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DictionaryBenchmark {
+
+    @Param({"10000", "100000", "270000"})
+    public int dictionarySize;
+
+    private ScrabbleOps ops;
+    private String fileName;
+
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        ops = ScrabbleOps.create();
+        fileName = SyntheticDictionary.wordFile(dictionarySize, 455);
+    }
+
+
+    @Benchmark
+    public Object buildDictionary() throws IOException {
+        return ops.buildDictionary(fileName);
+    }
+}
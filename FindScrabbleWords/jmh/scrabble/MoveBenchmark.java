@@ -0,0 +1,61 @@
+package scrabble;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ Full-board move generation: every move of a 7-tile rack on a board in the middle of a game,
+ which the best moves of playedRacks racks were played on from an empty board.
+ Each call works on the next rack of a fixed set.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveBenchmark {
+
+    private static final int NUM_RACKS = 16;
+    private static final int RACK_LENGTH = 7;
+
+    @Param({"10000", "270000"})
+    public int dictionarySize;
+
+    @Param({"0", "10"})
+    public int playedRacks;
+
+    private ScrabbleOps ops;
+    private String[] racks;
+    private int next = 0;
+
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+
+        ops = ScrabbleOps.create();
+        ops.open(SyntheticDictionary.wordFile(dictionarySize, 455));
+        ops.openBoard(SyntheticDictionary.racks(playedRacks, RACK_LENGTH, RACK_LENGTH, 7));
+        racks = SyntheticDictionary.racks(NUM_RACKS, RACK_LENGTH, RACK_LENGTH, 455);
+    }
+
+
+    @Benchmark
+    public int generateMoves() {
+        next = (next + 1) % racks.length;
+        return ops.generateMoves(racks[next]);
+    }
+}
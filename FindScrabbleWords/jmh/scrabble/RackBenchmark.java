@@ -0,0 +1,107 @@
+package scrabble;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ The per-rack hot paths of the word finder: subset enumeration, anagram lookup, word scoring,
+ the trie search and the whole ranked report. Each call works on the next rack (or word) of a
+ fixed set, so the branch predictor cannot learn a single input.
+ Racks are parameterized by their number of tiles and of distinct letters; when distinctLetters
+ is larger than rackLength every tile is a distinct letter.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RackBenchmark {
+
+    private static final int NUM_RACKS = 16;
+    private static final int MAX_QUERIES = 4096;
+
+    @Param({"10000", "270000"})
+    public int dictionarySize;
+
+    @Param({"7", "10", "15"})
+    public int rackLength;
+
+    @Param({"3", "7", "15"})
+    public int distinctLetters;
+
+    private ScrabbleOps ops;
+    private String[] racks;
+    private String[] queries;
+    // subsets of the racks, the strings WordFinder used to look up one by one
+    private int next = 0;
+
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+
+        ops = ScrabbleOps.create();
+        ops.open(SyntheticDictionary.wordFile(dictionarySize, 455));
+        racks = SyntheticDictionary.racks(NUM_RACKS, rackLength, Math.min(distinctLetters, rackLength), 455);
+
+        ArrayList<String> subsets = new ArrayList<String>();
+
+        for (int i = 0; i < racks.length && subsets.size() < MAX_QUERIES; i++) {
+            subsets.addAll(ops.subsetsOf(racks[i]));
+        }
+
+        queries = subsets.subList(0, Math.min(subsets.size(), MAX_QUERIES)).toArray(new String[0]);
+    }
+
+
+    @Benchmark
+    public int allSubsets() {
+        return ops.allSubsets(nextRack());
+    }
+
+
+    @Benchmark
+    public int getAnagramsOf() {
+        next = (next + 1) % queries.length;
+        return ops.getAnagramsOf(queries[next]);
+    }
+
+
+    @Benchmark
+    public int getScore() {
+        next = (next + 1) % queries.length;
+        return ops.getScore(queries[next]);
+    }
+
+
+    @Benchmark
+    public int findWords() {
+        return ops.findWords(nextRack());
+    }
+
+
+    @Benchmark
+    public int report() {
+        return ops.report(nextRack());
+    }
+
+
+    private String nextRack() {
+        next = (next + 1) % racks.length;
+        return racks[next];
+    }
+}
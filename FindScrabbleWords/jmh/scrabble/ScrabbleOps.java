@@ -0,0 +1,112 @@
+package scrabble;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ The operations of the word finder that the benchmarks measure.
+ The word finder classes are in the default package, which a named package such as this one
+ cannot refer to, so the benchmarks reach them through this interface. It is implemented by
+ BenchmarkOps in the default package and loaded by name; every benchmark only ever sees that one
+ implementation, so the JIT inlines the interface calls.
+ */
+public interface ScrabbleOps {
+
+    /**
+     Create the word finder implementation of the operations.
+
+     @return  a new BenchmarkOps
+     */
+    static ScrabbleOps create() {
+
+        try {
+            return (ScrabbleOps) Class.forName("BenchmarkOps").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException exception) {
+            throw new IllegalStateException("BenchmarkOps is not on the class path", exception);
+        }
+    }
+
+
+    /**
+     Build the anagram dictionary, signature trie and rack solver of a word file that the other
+     operations use.
+
+     @param fileName  the word file
+     */
+    void open(String fileName) throws IOException;
+
+
+    /**
+     Build a new anagram dictionary from a word file (the AnagramDictionary constructor).
+
+     @param fileName  the word file
+
+     @return  the dictionary
+     */
+    Object buildDictionary(String fileName) throws IOException;
+
+
+    /**
+     AnagramDictionary.getAnagramsOf on the opened dictionary.
+
+     @return  the number of anagrams of s
+     */
+    int getAnagramsOf(String s);
+
+
+    /**
+     Rack.allSubsets.
+
+     @return  the number of subsets of rack
+     */
+    int allSubsets(String rack);
+
+
+    /**
+     Rack.allSubsets, returning the subsets themselves.
+
+     @return  the subsets of rack
+     */
+    List<String> subsetsOf(String rack);
+
+
+    /**
+     ScoreTable.getScore.
+
+     @return  the score of word
+     */
+    int getScore(String word);
+
+
+    /**
+     Find the words of a rack with the signature trie of the opened dictionary.
+
+     @return  the number of words found
+     */
+    int findWords(String rack);
+
+
+    /**
+     Find, rank and format the words of a rack, as WordFinder prints them (RackSolver.report).
+
+     @return  the length of the report
+     */
+    int report(String rack);
+
+
+    /**
+     Build the move generator of the opened dictionary and get a board in the middle of a game:
+     the best move of each of the racks is played in turn from an empty board.
+
+     @param racks  the racks to play
+     */
+    void openBoard(String[] racks);
+
+
+    /**
+     MoveGenerator.generate on the opened board.
+
+     @return  the number of moves of rack
+     */
+    int generateMoves(String rack);
+}
@@ -0,0 +1,120 @@
+package scrabble;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ Generates word lists and racks with English letter frequencies, so the benchmarks run offline
+ and without sowpods.txt. The output only depends on the arguments, so runs are comparable.
+ */
+public class SyntheticDictionary {
+
+    // every letter repeated about as often as it occurs in English text
+    private static final String LETTER_POOL =
+            "eeeeeeeeeeeeaaaaaaaaaiiiiiiiiioooooooonnnnnnrrrrrrttttttllllssssuuuuddddgggbbccmmppffhhvvwwyykjxqz";
+
+    private static final int MIN_WORD_LENGTH = 2;
+    private static final int MAX_WORD_LENGTH = 15;
+
+
+    /**
+     Get a word file of the given number of words in the temporary directory, writing it if it
+     does not exist yet.
+
+     @param numWords  the number of distinct words in the file
+     @param seed  the seed of the random words
+
+     @return  the name of the word file
+     */
+    public static String wordFile(int numWords, long seed) throws IOException {
+
+        File file = new File(System.getProperty("java.io.tmpdir"), "synthetic-" + numWords + "-" + seed + ".txt");
+
+        if (file.isFile()) {
+            return file.getPath();
+        }
+
+        Random rand = new Random(seed);
+        Set<String> words = new HashSet<String>();
+        File temp = File.createTempFile("synthetic", ".tmp", file.getParentFile());
+
+        try (PrintWriter out = new PrintWriter(temp, "US-ASCII")) {
+            while (words.size() < numWords) {
+
+                // short words are more common than long ones, as in a real word list
+                int length = MIN_WORD_LENGTH + (int) (Math.abs(rand.nextGaussian()) * 4);
+                String word = randomLetters(rand, Math.min(length, MAX_WORD_LENGTH));
+
+                if (words.add(word)) {
+                    out.println(word);
+                }
+            }
+        }
+
+        if (!temp.renameTo(file) && !file.isFile()) {
+            throw new IOException("Cannot create " + file);
+        }
+
+        return file.getPath();
+    }
+
+
+    /**
+     Generate racks with a given number of tiles and of distinct letters.
+
+     @param numRacks  the number of racks
+     @param length  the number of tiles on each rack
+     @param distinct  the number of distinct letters on each rack, at most length and 26
+     @param seed  the seed of the random racks
+
+     @return  the racks
+     */
+    public static String[] racks(int numRacks, int length, int distinct, long seed) {
+
+        Random rand = new Random(seed);
+        String[] racks = new String[numRacks];
+
+        for (int r = 0; r < numRacks; r++) {
+
+            // choose the distinct letters, then fill the rest of the rack with copies of them
+            StringBuilder letters = new StringBuilder();
+
+            while (letters.length() < distinct) {
+                char c = LETTER_POOL.charAt(rand.nextInt(LETTER_POOL.length()));
+
+                if (letters.indexOf(String.valueOf(c)) < 0) {
+                    letters.append(c);
+                }
+            }
+
+            StringBuilder rack = new StringBuilder(letters);
+
+            while (rack.length() < length) {
+                rack.append(letters.charAt(rand.nextInt(distinct)));
+            }
+
+            racks[r] = rack.toString();
+        }
+
+        return racks;
+    }
+
+
+    /**
+     Generate a string of random letters.
+     */
+    private static String randomLetters(Random rand, int length) {
+
+        char[] letters = new char[length];
+
+        for (int i = 0; i < length; i++) {
+            letters[i] = LETTER_POOL.charAt(rand.nextInt(LETTER_POOL.length()));
+        }
+
+        return new String(letters);
+    }
+}